@@ -0,0 +1,59 @@
+package minesweeper.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import minesweeper.Model;
+import minesweeper.RevealBatch;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures building mine fields of several sizes and densities: a new model, a reset of an
+ * existing one, and the first click on a field whose mines wait for it.
+ *
+ * @author Benjamin Revard
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+	@Param({"20", "200", "2000"})
+	private int length; // The length of one side of the mine field
+
+	@Param({"0.01", "0.15", "0.5", "0.95"})
+	private double density; // The fraction of the cells that are mines
+
+	private int mines; // The number of mines
+	private SplittableRandom random; // The random generator for the mines
+	private Model eager; // A model that places its mines when it is reset
+	private Model safe; // A model that places its mines on the first click
+
+	@Setup
+	public void setup() {
+		mines = (int) (length * length * density);
+		random = new SplittableRandom(42);
+		eager = new Model(length, mines, random);
+		safe = new Model(length, Math.min(mines, length * length - 9), random, true);
+	}
+
+	@Benchmark
+	public Model construct() {
+		return new Model(length, mines, random);
+	}
+
+	@Benchmark
+	public Model reset() {
+		eager.reset();
+		return eager;
+	}
+
+	@Benchmark
+	public RevealBatch firstClick() {
+		safe.reset();
+		return safe.reveal(length / 2, length / 2);
+	}
+
+}
@@ -0,0 +1,28 @@
+package minesweeper.benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks with the GC profiler, so that every result comes with its allocation rate.
+ * The arguments are passed on to JMH; giving a profiler with -prof replaces the GC profiler.
+ *
+ * @author Benjamin Revard
+ */
+public class Main {
+
+	/**
+	 * Starts JMH.
+	 * Input: the JMH command line
+	 */
+	public static void main(String[] args) throws Exception {
+		if (!Arrays.asList(args).contains("-prof")) {
+			String[] withGc = new String[args.length + 2];
+			withGc[0] = "-prof";
+			withGc[1] = "gc";
+			System.arraycopy(args, 0, withGc, 2, args.length);
+			args = withGc;
+		}
+		org.openjdk.jmh.Main.main(args);
+	}
+
+}
@@ -0,0 +1,68 @@
+package minesweeper.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import minesweeper.Cell;
+import minesweeper.Model;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures visiting the neighbors of every cell of the mine field, through the allocation-free
+ * visitor, the neighbor counts, and the compatibility list.
+ *
+ * @author Benjamin Revard
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeighborBenchmark {
+
+	@Param({"20", "500"})
+	private int length; // The length of one side of the mine field
+
+	private Model model; // The mine field
+	private IntConsumer sink; // Consumes the neighbor indices
+
+	@Setup
+	public void setup(Blackhole blackhole) {
+		model = new Model(length, length * length / 5, new SplittableRandom(42));
+		sink = blackhole::consume;
+	}
+
+	@Benchmark
+	public void forEachNeighbor() {
+		for (int row = 0; row < length; row++) {
+			for (int col = 0; col < length; col++) {
+				model.forEachNeighbor(col, row, sink);
+			}
+		}
+	}
+
+	@Benchmark
+	public int countFlaggedNeighbors() {
+		int count = 0;
+		for (int row = 0; row < length; row++) {
+			for (int col = 0; col < length; col++) {
+				count += model.getNumFlaggedNeighbors(col, row);
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public void getNeighbors(Blackhole blackhole) {
+		for (int row = 0; row < length; row++) {
+			for (int col = 0; col < length; col++) {
+				for (Cell neighbor : model.getNeighbors(col, row)) {
+					blackhole.consume(neighbor);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+package minesweeper.benchmarks;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import minesweeper.BoardComponent;
+import minesweeper.Model;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures painting the mine field, which is where the view spends its time after a click:
+ * the whole field, and the single cell a click usually changes.
+ *
+ * @author Benjamin Revard
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBenchmark {
+
+	@Param({"20", "100"})
+	private int length; // The length of one side of the mine field
+
+	private BoardComponent board; // The component that draws the mine field
+	private BufferedImage image; // What the component draws on
+	private Graphics2D graphics; // The graphics context of the image
+
+	@Setup
+	public void setup() {
+		Model model = new Model(length, length * length / 6, new SplittableRandom(42), true);
+		model.reveal(length / 2, length / 2);
+		board = new BoardComponent(model);
+		board.setSize(length * 24, length * 24);
+		image = new BufferedImage(length * 24, length * 24, BufferedImage.TYPE_INT_RGB);
+		graphics = image.createGraphics();
+	}
+
+	@TearDown
+	public void tearDown() {
+		graphics.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage paintAll() {
+		graphics.setClip(0, 0, image.getWidth(), image.getHeight());
+		board.paint(graphics);
+		return image;
+	}
+
+	@Benchmark
+	public BufferedImage paintOneCell() {
+		graphics.setClip(24 * (length / 2), 24 * (length / 2), 24, 24);
+		board.paint(graphics);
+		return image;
+	}
+
+}
@@ -0,0 +1,59 @@
+package minesweeper.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import minesweeper.Model;
+import minesweeper.RevealBatch;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the flood fill of a single click on a sparse mine field, where one click
+ * opens most of the field.
+ *
+ * @author Benjamin Revard
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RevealBenchmark {
+
+	@Param({"500", "2000"})
+	private int length; // The length of one side of the mine field
+
+	@Param({"0.01", "0.05"})
+	private double density; // The fraction of the cells that are mines
+
+	private Model model; // The mine field
+	private int col; // The column of a cell with no neighboring mines
+	private int row; // The row of that cell
+
+	@Setup(Level.Trial)
+	public void setup() {
+		model = new Model(length, (int) (length * length * density), new SplittableRandom(42));
+	}
+
+	/**
+	 * Makes a fresh field and finds a cell with no neighboring mines to click, outside the measurement.
+	 */
+	@Setup(Level.Invocation)
+	public void newField() {
+		model.reset();
+		for (int i = 0; i < length * length; i++) {
+			col = i % length;
+			row = i / length;
+			if (!model.getCell(col, row).getIsMine() && model.getCell(col, row).getValue() == 0) {
+				return;
+			}
+		}
+	}
+
+	@Benchmark
+	public int floodReveal() {
+		RevealBatch revealed = model.reveal(col, row);
+		return revealed.size();
+	}
+
+}
@@ -0,0 +1,59 @@
+package minesweeper.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import minesweeper.GameEngine;
+import minesweeper.GameStatus;
+import minesweeper.Model;
+import minesweeper.MoveResult;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the checks for a win or a loss that follow every click, alone and as part of
+ * a flag move on the engine.
+ *
+ * @author Benjamin Revard
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WinCheckBenchmark {
+
+	@Param({"20", "200", "2000"})
+	private int length; // The length of one side of the mine field
+
+	private Model model; // The mine field, after a first click
+	private GameEngine engine; // The engine playing on it
+	private int col; // The column of a hidden cell
+	private int row; // The row of that cell
+
+	@Setup
+	public void setup() {
+		model = new Model(length, length * length / 5, new SplittableRandom(42), true);
+		engine = new GameEngine(model);
+		engine.reveal(length / 2, length / 2);
+		for (int i = 0; i < length * length; i++) {
+			col = i % length;
+			row = i / length;
+			if (!model.getCell(col, row).getLeftClicked()) {
+				return;
+			}
+		}
+	}
+
+	@Benchmark
+	public boolean hasWonOrLost() {
+		return model.hasWon() || model.hasLost();
+	}
+
+	@Benchmark
+	public GameStatus flagAndUnflag() {
+		engine.toggleFlag(col, row);
+		MoveResult result = engine.toggleFlag(col, row);
+		return result.getStatus();
+	}
+
+}
@@ -0,0 +1,308 @@
+package minesweeper;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A packed representation of the mine field, which is the storage behind the model.
+ * Every cell is kept in a single byte of a flat array, indexed row-major:
+ * the low nibble holds the value of the cell (0-9), and the upper bits hold
+ * whether the cell is a mine, has been revealed (left clicked) or has been flagged
+ * (right clicked).
+ * 
+ * The field is surrounded by a one cell wide border of sentinel cells, so the eight
+ * neighbors of any cell are always at the same fixed offsets from its index and
+ * neighbor loops never need to test for the edges of the field. The field may have
+ * any number of columns and rows; only the distance between rows depends on them.
+ *
+ * @author Benjamin Revard
+ */
+public class Board {
+
+	static final int VALUE = 0x0F; // Bits holding the value of a cell (0-9)
+	static final int MINE = 0x10; // Bit set when the cell is a mine
+	static final int REVEALED = 0x20; // Bit set when the cell has been left clicked
+	static final int FLAGGED = 0x40; // Bit set when the cell has been right clicked
+	static final int BORDER = 0x80; // Bit set on the sentinel cells around the field
+
+	private int width; // The number of columns of the mine field (> 0)
+	private int height; // The number of rows of the mine field (> 0)
+	private int stride; // The distance between two rows in the packed array (width + 2)
+	private byte[] cells; // One byte per cell, row-major, including the border
+	private int[] offsets; // The index offsets of the eight neighbors of a cell
+
+	/**
+	 * Constructor: makes a new board where every cell has the default attributes.
+	 * Input: the number of columns and the number of rows of the mine field
+	 */
+	public Board(int width, int height) {
+		this.width = width;
+		this.height = height;
+		stride = width + 2;
+		cells = new byte[stride * (height + 2)];
+		offsets = new int[] {-stride - 1, -stride, -stride + 1, -1, 1, stride - 1, stride, stride + 1};
+		markBorder();
+	}
+
+	/**
+	 * Checks whether a mine field of this size fits in a packed array, border included.
+	 * Input: the number of columns and the number of rows of the mine field
+	 */
+	public static boolean fits(int width, int height) {
+		return width > 0 && height > 0 && (long) (width + 2) * (height + 2) <= Integer.MAX_VALUE - 8;
+	}
+
+	/**
+	 * Gives every cell the default attributes again.
+	 */
+	void clear() {
+		Arrays.fill(cells, (byte) 0);
+		markBorder();
+	}
+
+	/**
+	 * Hides and unflags every cell, keeping the mines and values.
+	 */
+	void clearProgress() {
+		for (int i = 0; i < cells.length; i++) {
+			if ((cells[i] & BORDER) == 0) {
+				cells[i] &= ~(REVEALED | FLAGGED);
+			}
+		}
+	}
+
+	/**
+	 * Marks the sentinel cells around the field.
+	 */
+	private void markBorder() {
+		for (int i = 0; i < stride; i++) {
+			cells[i] = (byte) BORDER;
+			cells[cells.length - 1 - i] = (byte) BORDER;
+		}
+		for (int i = 0; i < height + 2; i++) {
+			cells[i * stride] = (byte) BORDER;
+			cells[i * stride + stride - 1] = (byte) BORDER;
+		}
+	}
+
+	/**
+	 * Returns the index of a cell in the packed array.
+	 * Input: the column and row of the cell
+	 */
+	public int index(int col, int row) {
+		return (row + 1) * stride + col + 1;
+	}
+
+	/**
+	 * Returns a copy of this board, cell for cell.
+	 */
+	Board copy() {
+		Board copy = new Board(width, height);
+		System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+		return copy;
+	}
+
+	/**
+	 * Copies a run of cells of one row, which may reach outside the field. Cells outside the field
+	 * are copied as border cells.
+	 * Input: the column of the first cell and its row, the number of cells, and the array to copy them to
+	 */
+	void copyRow(int col, int row, int count, byte[] into) {
+		int from = (int) Math.max(0, Math.min(count, -(long) col));
+		int to = (int) Math.max(from, Math.min(count, (long) width - col));
+		if (row < 0 || row >= height) {
+			from = count;
+			to = count;
+		}
+		Arrays.fill(into, 0, from, (byte) BORDER);
+		if (to > from) {
+			System.arraycopy(cells, index(col + from, row), into, from, to - from);
+		}
+		Arrays.fill(into, to, count, (byte) BORDER);
+	}
+
+	/**
+	 * Returns the column of the cell stored at this index.
+	 * Input: the index of the cell
+	 */
+	public int column(int index) {
+		return index % stride - 1;
+	}
+
+	/**
+	 * Returns the row of the cell stored at this index.
+	 * Input: the index of the cell
+	 */
+	public int row(int index) {
+		return index / stride - 1;
+	}
+
+	/**
+	 * Calls the action with the index of every neighbor of this cell that lies inside the field.
+	 * Nothing is allocated, and the only test in the loop is for the sentinel border.
+	 * Input: the index of the cell, and the action to take for each neighbor
+	 */
+	public void forEachNeighbor(int index, IntConsumer action) {
+		for (int offset : offsets) {
+			int neighbor = index + offset;
+			if ((cells[neighbor] & BORDER) == 0) {
+				action.accept(neighbor);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of neighbors of this cell whose masked bits equal the expected bits.
+	 * Border cells never match as long as the mask includes BORDER or the expected bits are non-zero.
+	 * Input: the index of the cell, the bits to look at, and the bits they should equal
+	 */
+	public int countNeighbors(int index, int mask, int expected) {
+		int count = 0;
+		for (int offset : offsets) {
+			if ((cells[index + offset] & mask) == expected) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Makes this cell a mine, and adds one to the value of each of its neighbors. The values of
+	 * neighbors that are mines, or part of the border, are meaningless until they are set.
+	 * Input: the index of the cell
+	 */
+	void addMine(int index) {
+		cells[index] |= MINE;
+		for (int offset : offsets) {
+			cells[index + offset]++;
+		}
+	}
+
+	/**
+	 * Reveals this cell and adds it to the batch, unless it is already revealed or flagged.
+	 * Input: the index of the cell, and the batch to add it to
+	 */
+	void reveal(int index, RevealBatch batch) {
+		if ((cells[index] & (REVEALED | FLAGGED | BORDER)) == 0) {
+			cells[index] |= REVEALED;
+			batch.add(index);
+		}
+	}
+
+	/**
+	 * Reveals every neighbor of this cell that is neither revealed nor flagged, and adds them to the batch.
+	 * Input: the index of the cell, and the batch to add the neighbors to
+	 */
+	void revealNeighbors(int index, RevealBatch batch) {
+		for (int offset : offsets) {
+			reveal(index + offset, batch);
+		}
+	}
+
+	/**
+	 * Floods outwards from the cells of the batch, starting at the given position. Every cell
+	 * in the batch that has no neighboring mines has its hidden, unflagged neighbors revealed
+	 * and appended to the batch, which makes the batch its own work queue: the fill is
+	 * iterative, and each cell is revealed and queued at most once.
+	 * Input: the batch holding the cells to flood from, and the position of the first one
+	 */
+	void flood(RevealBatch batch, int from) {
+		for (int i = from; i < batch.size(); i++) {
+			int index = batch.get(i);
+			if ((cells[index] & (VALUE | MINE)) == 0) {
+				revealNeighbors(index, batch);
+			}
+		}
+	}
+
+	/**
+	 * Checks if this index belongs to the sentinel border rather than the field.
+	 * Input: the index of the cell
+	 */
+	public boolean isBorder(int index) {
+		return (cells[index] & BORDER) != 0;
+	}
+
+	// Getters
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the size of the packed array, including the border.
+	 */
+	public int size() {
+		return cells.length;
+	}
+
+	public int getStride() {
+		return stride;
+	}
+
+	public int[] getNeighborOffsets() {
+		return offsets.clone();
+	}
+
+	public int getValue(int index) {
+		return cells[index] & VALUE;
+	}
+
+	public boolean isMine(int index) {
+		return (cells[index] & MINE) != 0;
+	}
+
+	public boolean isRevealed(int index) {
+		return (cells[index] & REVEALED) != 0;
+	}
+
+	public boolean isFlagged(int index) {
+		return (cells[index] & FLAGGED) != 0;
+	}
+
+	/**
+	 * Returns every bit of a cell, packed as it is stored.
+	 * Input: the index of the cell
+	 */
+	int getState(int index) {
+		return cells[index] & 0xFF;
+	}
+
+	// Setters, only for the model, which keeps track of the state of the game
+	void setValue(int index, int value) {
+		cells[index] = (byte) ((cells[index] & ~VALUE) | (value & VALUE));
+	}
+
+	void setMine(int index, boolean mine) {
+		set(index, MINE, mine);
+	}
+
+	void setRevealed(int index, boolean revealed) {
+		set(index, REVEALED, revealed);
+	}
+
+	void setFlagged(int index, boolean flagged) {
+		set(index, FLAGGED, flagged);
+	}
+
+	void setState(int index, int state) {
+		cells[index] = (byte) state;
+	}
+
+	/**
+	 * Sets or clears one of the state bits of a cell.
+	 * Input: the index of the cell, the bit to change, and whether to set it
+	 */
+	private void set(int index, int bit, boolean on) {
+		if (on) {
+			cells[index] |= bit;
+		}
+		else {
+			cells[index] &= ~bit;
+		}
+	}
+
+}
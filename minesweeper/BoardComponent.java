@@ -0,0 +1,688 @@
+package minesweeper;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import javax.swing.*;
+
+/**
+ * A single component that draws the mine field, which is part of the view. It is a viewport onto the mine
+ * field: dragging the mouse or turning the wheel pans it, and turning the wheel with Control held zooms it
+ * around the mouse. Only the cells in view are read from the model, a row at a time, so the cost of a paint
+ * depends on the size of the component and not on the size of the mine field, which may even be endless.
+ *
+ * Cells are painted at one of three levels of detail. With cells of MIN_IMAGE_SIZE pixels or more, each is
+ * drawn from an image of its kind, drawn once per cell size. Smaller cells are painted as plain squares of
+ * color straight into a picture the size of the component. When cells are smaller than a pixel, which only
+ * a bounded mine field allows, the mine field is drawn from a density map, a picture with one pixel per block
+ * of cells that is kept up to date as cells change. Mouse coordinates are mapped to cells arithmetically.
+ *
+ * Until the player pans or zooms, a bounded mine field is zoomed to fit the component.
+ *
+ * @author Benjamin Revard
+ */
+public class BoardComponent extends JComponent {
+
+	private static final int PREFERRED_CELL_SIZE = 24; // The preferred length of one side of a cell, in pixels
+	private static final int MIN_IMAGE_SIZE = 6; // The smallest cell size, in pixels, drawn from images
+	private static final int WHEEL_STEP = 48; // The number of pixels one notch of the wheel pans by
+
+	// The zoom levels, as the length of a side of a cell in pixels, or as minus the number of cells per pixel
+	private static final int[] ZOOMS = {-64, -32, -16, -8, -4, -2, 1, 2, 3, 4, 6, 8, 12, 16, 24, 32, 48};
+	private static final int FIRST_ENDLESS_ZOOM = 6; // The first of the zoom levels an endless mine field allows
+
+	// Positions of the cell images
+	private static final int MINE = 9; // Images 0 to 8 are revealed cells with that value
+	private static final int HIDDEN = 10;
+	private static final int FLAG = 11;
+	private static final int BLACK = 12;
+	private static final int GREEN = 13;
+	private static final int OUTSIDE = 14; // The area outside a bounded mine field
+
+	// The colors of the values 1 to 8
+	private static final Color[] VALUE_COLORS = {null, Color.BLUE, Color.GREEN, Color.RED, Color.MAGENTA,
+			Color.ORANGE, Color.PINK, Color.CYAN, Color.YELLOW};
+
+	// The cells of the victory message, as {column, row}
+	private static final int[][] VICTORY_MSG = {
+		// the Y
+		{2, 4}, {1, 2}, {1, 3}, {4, 4}, {5, 2}, {5, 3}, {3, 5}, {3, 6}, {3, 7},
+		// the O
+		{7, 3}, {7, 4}, {7, 5}, {7, 6}, {11, 3}, {11, 4}, {11, 5}, {11, 6}, {8, 2}, {9, 2}, {10, 2}, {8, 7}, {9, 7}, {10, 7},
+		// the U
+		{13, 2}, {13, 3}, {13, 4}, {13, 5}, {13, 6}, {14, 7}, {15, 7}, {16, 7}, {17, 6}, {17, 5}, {17, 4}, {17, 3}, {17, 2},
+		// the W
+		{1, 11}, {1, 12}, {1, 13}, {1, 14}, {1, 15}, {2, 16}, {3, 15}, {4, 16}, {5, 15}, {5, 14}, {5, 13}, {5, 12}, {5, 11},
+		// the second O
+		{7, 12}, {7, 13}, {7, 14}, {7, 15}, {11, 12}, {11, 13}, {11, 14}, {11, 15}, {8, 11}, {9, 11}, {10, 11}, {8, 16}, {9, 16}, {10, 16},
+		// the N
+		{13, 11}, {13, 12}, {13, 13}, {13, 14}, {13, 15}, {13, 16}, {17, 11}, {17, 12}, {17, 13}, {17, 14}, {17, 15}, {17, 16},
+		{14, 12}, {15, 13}, {15, 14}, {16, 15}
+	};
+
+	private CellSource source; // The mine field that is drawn
+	private boolean victory; // Whether to paint the victory message instead of the mine field
+	private boolean[][] victoryCells; // The cells of the victory message, indexed by column and then row
+	private int[][] imagePixels; // The pixels of the image of each kind of cell, drawn for the current cell size
+	private int imageSize; // The cell size the images were drawn for (0 before they are drawn)
+	private int[] palette; // The color of each packed cell, as RGB, for cells too small for images
+	private BufferedImage frame; // The picture the cells in view are painted into, or null
+	private int[] framePixels; // The pixels of that picture, row by row
+	private byte[] rowCells; // One row of cells in view, reused for every row read
+	private DensityMap density; // The picture of the mine field when cells are smaller than a pixel, or null
+	private boolean densityValid; // Whether that picture shows every change up to the last flush
+	private int cellSize; // The length of one side of a cell, in pixels, or 1 when cells are smaller (>= 1)
+	private int cellsPerPixel; // The number of cells along a side of a pixel, or 1 when cells are larger (>= 1)
+	private long originX, originY; // The pixel of the whole mine field at the top left corner of the component
+	private boolean fitted; // Whether the zoom follows the size of the component, until the player changes it
+	private int dragX, dragY; // Where the mouse was when the mine field was last dragged
+	private int dirtyMinCol, dirtyMinRow; // The top left cell of the area that changed since the last repaint
+	private int dirtyMaxCol, dirtyMaxRow; // The bottom right cell of that area (less than the top left when empty)
+	private boolean allDirty; // Whether every cell may have changed since the last repaint
+
+	/**
+	 * Constructor: makes a component that draws a mine field, and lets the player pan and zoom it.
+	 * Input: the mine field
+	 */
+	public BoardComponent(CellSource source) {
+		victory = false;
+		victoryCells = new boolean[18][17];
+		for (int[] cell : VICTORY_MSG) {
+			victoryCells[cell[0]][cell[1]] = true;
+		}
+		imageSize = 0;
+		rowCells = new byte[256];
+		setSource(source);
+		setOpaque(true);
+
+		MouseAdapter navigation = new MouseAdapter() {
+			public void mousePressed(MouseEvent e) {
+				dragX = e.getX();
+				dragY = e.getY();
+			}
+
+			public void mouseDragged(MouseEvent e) {
+				if (!SwingUtilities.isRightMouseButton(e)) {
+					pan(e.getX() - dragX, e.getY() - dragY);
+					dragX = e.getX();
+					dragY = e.getY();
+				}
+			}
+
+			public void mouseWheelMoved(MouseWheelEvent e) {
+				if (e.isControlDown()) {
+					zoom(-e.getWheelRotation(), e.getX(), e.getY());
+				}
+				else if (e.isShiftDown()) {
+					pan(-e.getWheelRotation() * WHEEL_STEP, 0);
+				}
+				else {
+					pan(0, -e.getWheelRotation() * WHEEL_STEP);
+				}
+			}
+		};
+		addMouseListener(navigation);
+		addMouseMotionListener(navigation);
+		addMouseWheelListener(navigation);
+	}
+
+	/**
+	 * Sets the preferred size to fit a bounded mine field with cells of the preferred size, shrinking the cells
+	 * of large mine fields so that neither side is over 2000 pixels.
+	 */
+	private void updatePreferredSize() {
+		if (!source.getIsBounded()) {
+			setPreferredSize(new Dimension(800, 600));
+			return;
+		}
+		int width = source.getWidth();
+		int height = source.getHeight();
+		int cell = Math.max(1, Math.min(PREFERRED_CELL_SIZE, 2000 / Math.max(width, height)));
+		setPreferredSize(new Dimension(Math.min(2000, width * cell), Math.min(2000, height * cell)));
+	}
+
+	/**
+	 * Zooms a bounded mine field to the largest cells that let all of it fit in the component, and an endless
+	 * one to cells of the preferred size around its first cell, if the zoom still follows the size of the
+	 * component.
+	 */
+	private void fit() {
+		if (!fitted || getWidth() <= 0 || getHeight() <= 0) {
+			return;
+		}
+		if (!source.getIsBounded()) {
+			cellSize = PREFERRED_CELL_SIZE;
+			cellsPerPixel = 1;
+			originX = -(getWidth() - cellSize) / 2;
+			originY = -(getHeight() - cellSize) / 2;
+			return;
+		}
+		int width = source.getWidth();
+		int height = source.getHeight();
+		cellSize = Math.max(1, Math.min(getWidth() / width, getHeight() / height));
+		cellsPerPixel = 1;
+		while (cellSize == 1 && cellsPerPixel < -ZOOMS[0]
+				&& ((width - 1) / cellsPerPixel >= getWidth() || (height - 1) / cellsPerPixel >= getHeight())) {
+			cellsPerPixel *= 2;
+		}
+		originX = 0;
+		originY = 0;
+	}
+
+	/**
+	 * Zooms in or out by a number of levels, keeping the cell under a point of the component where it is.
+	 * A bounded mine field can't be zoomed out further once all of it is in view, and an endless one can't
+	 * have cells smaller than a pixel.
+	 * Input: the number of levels to zoom in by (negative to zoom out), and the point to zoom around
+	 */
+	public void zoom(int levels, int x, int y) {
+		fit();
+		double scale = (double) cellSize / cellsPerPixel;
+
+		// Find the first level at or above the zoom, and count from there
+		int level = 0;
+		while (level < ZOOMS.length && scaleOf(ZOOMS[level]) < scale) {
+			level++;
+		}
+		if (levels > 0 && (level == ZOOMS.length || scaleOf(ZOOMS[level]) > scale)) {
+			levels--;
+		}
+		level = Math.max(source.getIsBounded() ? 0 : FIRST_ENDLESS_ZOOM, Math.min(ZOOMS.length - 1, level + levels));
+		if (levels >= 0 ? scaleOf(ZOOMS[level]) <= scale : scaleOf(ZOOMS[level]) >= scale) {
+			return;
+		}
+		else if (levels < 0 && source.getIsBounded()
+				&& getWidth() * cellsPerPixel >= (long) source.getWidth() * cellSize
+				&& getHeight() * cellsPerPixel >= (long) source.getHeight() * cellSize) {
+			return;
+		}
+
+		// Keep the cell under the point where it is
+		double col = (double) (originX + x) * cellsPerPixel / cellSize;
+		double row = (double) (originY + y) * cellsPerPixel / cellSize;
+		cellSize = Math.max(1, ZOOMS[level]);
+		cellsPerPixel = Math.max(1, -ZOOMS[level]);
+		originX = Math.round(col * cellSize / cellsPerPixel) - x;
+		originY = Math.round(row * cellSize / cellsPerPixel) - y;
+		fitted = false;
+		clampOrigin();
+		repaint();
+	}
+
+	/**
+	 * Returns the number of pixels along a side of a cell at a zoom level.
+	 * Input: the zoom level, as in ZOOMS
+	 */
+	private static double scaleOf(int zoom) {
+		return zoom > 0 ? zoom : -1.0 / zoom;
+	}
+
+	/**
+	 * Zooms in by one level around the middle of the component.
+	 */
+	public void zoomIn() {
+		zoom(1, getWidth() / 2, getHeight() / 2);
+	}
+
+	/**
+	 * Zooms out by one level around the middle of the component.
+	 */
+	public void zoomOut() {
+		zoom(-1, getWidth() / 2, getHeight() / 2);
+	}
+
+	/**
+	 * Zooms a bounded mine field to fit the component again, and an endless one back to its first cell.
+	 */
+	public void fitToWindow() {
+		fitted = true;
+		if (cellSize == 0) {
+			cellSize = PREFERRED_CELL_SIZE;
+			cellsPerPixel = 1;
+		}
+		fit();
+		repaint();
+	}
+
+	/**
+	 * Moves the mine field in the component.
+	 * Input: the number of pixels to move it right and down by
+	 */
+	public void pan(int dx, int dy) {
+		if (dx == 0 && dy == 0) {
+			return;
+		}
+		fit();
+		originX -= dx;
+		originY -= dy;
+		fitted = false;
+		clampOrigin();
+		repaint();
+	}
+
+	/**
+	 * Keeps a bounded mine field in view: its top left corner can't move into the component, nor its bottom
+	 * right corner out of it, unless all of it fits.
+	 */
+	private void clampOrigin() {
+		if (source.getIsBounded()) {
+			long width = ((long) source.getWidth() * cellSize + cellsPerPixel - 1) / cellsPerPixel;
+			long height = ((long) source.getHeight() * cellSize + cellsPerPixel - 1) / cellsPerPixel;
+			originX = Math.max(0, Math.min(originX, width - getWidth()));
+			originY = Math.max(0, Math.min(originY, height - getHeight()));
+		}
+	}
+
+	/**
+	 * Returns the length of one side of a cell in pixels, or 0 if cells are smaller than a pixel.
+	 */
+	public int getCellSize() {
+		fit();
+		return cellsPerPixel > 1 ? 0 : cellSize;
+	}
+
+	/**
+	 * Returns the column of the cell under this x coordinate. For a bounded mine field, returns -1 if it is
+	 * outside the mine field, or if cells are smaller than a pixel, since no single cell can be aimed at.
+	 * Input: the x coordinate, in pixels
+	 */
+	public int columnAt(int x) {
+		fit();
+		long col = Math.floorDiv(originX + x, cellSize);
+		if (source.getIsBounded() && (cellsPerPixel > 1 || col < 0 || col >= source.getWidth())) {
+			return -1;
+		}
+		return (int) col;
+	}
+
+	/**
+	 * Returns the row of the cell under this y coordinate. For a bounded mine field, returns -1 if it is
+	 * outside the mine field, or if cells are smaller than a pixel, since no single cell can be aimed at.
+	 * Input: the y coordinate, in pixels
+	 */
+	public int rowAt(int y) {
+		fit();
+		long row = Math.floorDiv(originY + y, cellSize);
+		if (source.getIsBounded() && (cellsPerPixel > 1 || row < 0 || row >= source.getHeight())) {
+			return -1;
+		}
+		return (int) row;
+	}
+
+	/**
+	 * Adds this cell to the area that needs repainting. Nothing is repainted until flush is called.
+	 * Input: the column and row of the cell
+	 */
+	public void markDirty(int col, int row) {
+		dirtyMinCol = Math.min(dirtyMinCol, col);
+		dirtyMinRow = Math.min(dirtyMinRow, row);
+		dirtyMaxCol = Math.max(dirtyMaxCol, col);
+		dirtyMaxRow = Math.max(dirtyMaxRow, row);
+	}
+
+	/**
+	 * Marks the whole mine field as needing repainting.
+	 */
+	public void markAllDirty() {
+		allDirty = true;
+	}
+
+	/**
+	 * Asks for one repaint of the area that changed since the last flush, if any of it is in view, and brings
+	 * the density map up to date with it. Swing coalesces the request with any others pending and paints it
+	 * on the event dispatch thread.
+	 * Returns whether a repaint was requested.
+	 */
+	public boolean flush() {
+		if (allDirty) {
+			densityValid = false;
+			clearDirty();
+			repaint();
+			return true;
+		}
+		if (dirtyMaxCol < dirtyMinCol) {
+			return false;
+		}
+		if (density != null && densityValid) {
+			density.update(dirtyMinCol, dirtyMinRow, dirtyMaxCol, dirtyMaxRow);
+		}
+		fit();
+		long x = Math.floorDiv((long) dirtyMinCol * cellSize, cellsPerPixel) - originX;
+		long y = Math.floorDiv((long) dirtyMinRow * cellSize, cellsPerPixel) - originY;
+		long right = Math.floorDiv(((long) dirtyMaxCol + 1) * cellSize + cellsPerPixel - 1, cellsPerPixel) - originX;
+		long bottom = Math.floorDiv(((long) dirtyMaxRow + 1) * cellSize + cellsPerPixel - 1, cellsPerPixel) - originY;
+		clearDirty();
+		x = Math.max(0, x);
+		y = Math.max(0, y);
+		right = Math.min(getWidth(), right);
+		bottom = Math.min(getHeight(), bottom);
+		if (right <= x || bottom <= y) {
+			return false;
+		}
+		repaint((int) x, (int) y, (int) (right - x), (int) (bottom - y));
+		return true;
+	}
+
+	/**
+	 * Empties the area that needs repainting.
+	 */
+	private void clearDirty() {
+		dirtyMinCol = Integer.MAX_VALUE;
+		dirtyMinRow = Integer.MAX_VALUE;
+		dirtyMaxCol = Integer.MIN_VALUE;
+		dirtyMaxRow = Integer.MIN_VALUE;
+		allDirty = false;
+	}
+
+	/**
+	 * Paints the cells that intersect the clip area, at the level of detail of the zoom.
+	 * Input: the graphics context
+	 */
+	protected void paintComponent(Graphics g) {
+		long started = Metrics.ENABLED ? System.nanoTime() : 0;
+		fit();
+
+		// Fill the area outside the mine field
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		g.setColor(getFill());
+		g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+		if (cellsPerPixel > 1) {
+			paintDensity(g);
+		}
+		else {
+			paintCells(g, clip);
+		}
+		if (Metrics.ENABLED) {
+			Metrics.get().recordPaint(System.nanoTime() - started);
+		}
+	}
+
+	/**
+	 * Paints each cell under the clip area into a picture the size of the component, and draws the picture.
+	 * Cells large enough are copied from the image of their kind a line of pixels at a time; smaller ones are
+	 * squares of their color. Either way the cost is one write per pixel, with no drawing call per cell.
+	 * Input: the graphics context, and the clip area
+	 */
+	private void paintCells(Graphics g, Rectangle clip) {
+		int width = getWidth();
+		if (frame == null || frame.getWidth() != width || frame.getHeight() != getHeight()) {
+			frame = new BufferedImage(Math.max(1, width), Math.max(1, getHeight()), BufferedImage.TYPE_INT_RGB);
+			framePixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+		}
+		int left = Math.max(0, clip.x);
+		int right = Math.min(width, clip.x + clip.width);
+		int top = Math.max(0, clip.y);
+		int bottom = Math.min(getHeight(), clip.y + clip.height);
+		if (right <= left || bottom <= top) {
+			return;
+		}
+		int size = cellSize;
+		boolean useImages = size >= MIN_IMAGE_SIZE;
+		if (useImages && size != imageSize) {
+			drawImages(size);
+		}
+		int firstCol = (int) Math.floorDiv(originX + left, size);
+		int lastCol = (int) Math.floorDiv(originX + right - 1, size);
+		int count = lastCol - firstCol + 1;
+		byte[] cells = getRowCells(count);
+		int firstLeft = (int) ((long) firstCol * size - originX); // The x of the left edge of the first cell
+		int y = top;
+		while (y < bottom) {
+			int row = (int) Math.floorDiv(originY + y, size);
+			int rowTop = (int) ((long) row * size - originY);
+			int rowEnd = Math.min(bottom, rowTop + size);
+			source.copyRow(firstCol, row, count, cells);
+			if (useImages) {
+				for (int i = 0; i < count; i++) {
+					int[] image = imagePixels[imageOf(cells[i], firstCol + i, row)];
+					int cellLeft = firstLeft + i * size;
+					int from = Math.max(left, cellLeft);
+					int to = Math.min(right, cellLeft + size);
+					for (int line = y; line < rowEnd; line++) {
+						int offset = (line - rowTop) * size + from - cellLeft;
+						System.arraycopy(image, offset, framePixels, line * width + from, to - from);
+					}
+				}
+			}
+			else if (size == 1 && !victory) {
+				int[] colors = getPalette();
+				int line = y * width;
+				for (int x = left; x < right; x++) {
+					framePixels[line + x] = colors[cells[x - left] & 0xFF];
+				}
+			}
+			else {
+				int line = y * width;
+				int x = left;
+				for (int i = 0; x < right; i++) {
+					int rgb = colorOf(cells[i], firstCol + i, row);
+					int end = Math.min(right, firstLeft + (i + 1) * size);
+					while (x < end) {
+						framePixels[line + x++] = rgb;
+					}
+				}
+				for (int copy = y + 1; copy < rowEnd; copy++) {
+					System.arraycopy(framePixels, line + left, framePixels, copy * width + left, right - left);
+				}
+			}
+			y = rowEnd;
+		}
+		g.drawImage(frame, 0, 0, null);
+	}
+
+	/**
+	 * Draws the density map of a bounded mine field, scaled to the zoom, making it or bringing it up to date
+	 * first if needed.
+	 * Input: the graphics context
+	 */
+	private void paintDensity(Graphics g) {
+		if (density == null) {
+			density = new DensityMap(source, getPalette());
+			densityValid = true;
+		}
+		else if (!densityValid) {
+			density.update(0, 0, source.getWidth() - 1, source.getHeight() - 1);
+			densityValid = true;
+		}
+		BufferedImage map = density.getImage();
+		int x = (int) -originX;
+		int y = (int) -originY;
+		int width = (int) ((long) map.getWidth() * density.getBlock() / cellsPerPixel);
+		int height = (int) ((long) map.getHeight() * density.getBlock() / cellsPerPixel);
+		if (victory) {
+			g.setColor(Color.BLACK);
+			g.fillRect(x, y, width, height);
+		}
+		else {
+			g.drawImage(map, x, y, x + width, y + height, 0, 0, map.getWidth(), map.getHeight(), null);
+		}
+	}
+
+	/**
+	 * Returns the array for a row of cells in view, growing it if needed.
+	 * Input: the number of cells in the row
+	 */
+	private byte[] getRowCells(int count) {
+		if (rowCells.length < count) {
+			rowCells = new byte[Math.max(count, 2 * rowCells.length)];
+		}
+		return rowCells;
+	}
+
+	/**
+	 * Returns the position of the image to draw for a cell.
+	 * Input: the packed cell, and its column and row
+	 */
+	private int imageOf(int cell, int col, int row) {
+		if ((cell & Board.BORDER) != 0) {
+			return OUTSIDE;
+		}
+		else if (victory) {
+			return inVictoryMsg(col, row) ? GREEN : BLACK;
+		}
+		else if ((cell & Board.REVEALED) != 0) {
+			return (cell & Board.MINE) != 0 ? MINE : cell & Board.VALUE;
+		}
+		else if ((cell & Board.FLAGGED) != 0) {
+			return FLAG;
+		}
+		return HIDDEN;
+	}
+
+	/**
+	 * Returns the color to paint a cell too small for its image, as RGB.
+	 * Input: the packed cell, and its column and row
+	 */
+	private int colorOf(int cell, int col, int row) {
+		if (victory && (cell & Board.BORDER) == 0) {
+			return inVictoryMsg(col, row) ? Color.GREEN.getRGB() : Color.BLACK.getRGB();
+		}
+		return getPalette()[cell & 0xFF];
+	}
+
+	/**
+	 * Checks whether a cell is part of the victory message, which is only shown if the mine field has room.
+	 * Input: the column and row of the cell
+	 */
+	private boolean inVictoryMsg(int col, int row) {
+		return source.getIsBounded() && source.getWidth() > 18 && source.getHeight() > 17 && col >= 0 && row >= 0
+				&& col < 18 && row < 17 && victoryCells[col][row];
+	}
+
+	/**
+	 * Returns the color of the area outside the mine field: the background color, or the color of buttons
+	 * if the component has no background, as when it is painted outside a window.
+	 */
+	private Color getFill() {
+		if (getBackground() != null) {
+			return getBackground();
+		}
+		Color button = UIManager.getColor("Button.background");
+		return button != null ? button : new Color(238, 238, 238);
+	}
+
+	/**
+	 * Returns the color of each packed cell, as RGB, making the palette when first needed. Revealed cells
+	 * with a value are tinted with the color of the value, and border cells take the background color.
+	 */
+	private int[] getPalette() {
+		if (palette != null) {
+			return palette;
+		}
+		palette = new int[256];
+		Color button = UIManager.getColor("Button.background");
+		if (button == null) {
+			button = new Color(238, 238, 238);
+		}
+		for (int cell = 0; cell < palette.length; cell++) {
+			Color color;
+			if ((cell & Board.BORDER) != 0) {
+				color = getFill();
+			}
+			else if ((cell & Board.REVEALED) != 0) {
+				int value = cell & Board.VALUE;
+				if ((cell & Board.MINE) != 0) {
+					color = Color.RED;
+				}
+				else if (value == 0 || value > 8) {
+					color = Color.LIGHT_GRAY;
+				}
+				else {
+					Color tint = VALUE_COLORS[value];
+					color = new Color((button.getRed() * 2 + tint.getRed()) / 3,
+							(button.getGreen() * 2 + tint.getGreen()) / 3, (button.getBlue() * 2 + tint.getBlue()) / 3);
+				}
+			}
+			else if ((cell & Board.FLAGGED) != 0) {
+				color = Color.BLUE;
+			}
+			else {
+				color = Color.GRAY;
+			}
+			palette[cell] = color.getRGB() & 0xFFFFFF;
+		}
+		return palette;
+	}
+
+	/**
+	 * Draws the image of each kind of cell for a cell size.
+	 * Input: the length of one side of a cell, in pixels
+	 */
+	private void drawImages(int size) {
+		imagePixels = new int[OUTSIDE + 1][];
+		Color button = UIManager.getColor("Button.background");
+		if (button == null) {
+			button = new Color(238, 238, 238);
+		}
+		Font font = getFont() != null ? getFont() : new Font(Font.SANS_SERIF, Font.BOLD, 12);
+		font = font.deriveFont(Font.BOLD, Math.max(1, size * 0.6f));
+
+		for (int i = 0; i < imagePixels.length; i++) {
+			BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = image.createGraphics();
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			if (i == 0) {
+				g.setColor(Color.LIGHT_GRAY);
+				g.fillRect(0, 0, size, size);
+			}
+			else if (i <= 8) {
+				g.setColor(button);
+				g.fillRect(0, 0, size, size);
+				g.setColor(Color.GRAY);
+				g.drawRect(0, 0, size - 1, size - 1);
+				if (size >= 6) {
+					String text = Integer.toString(i);
+					g.setFont(font);
+					FontMetrics metrics = g.getFontMetrics();
+					g.setColor(VALUE_COLORS[i]);
+					g.drawString(text, (size - metrics.stringWidth(text)) / 2,
+							(size - metrics.getHeight()) / 2 + metrics.getAscent());
+				}
+			}
+			else if (i == HIDDEN) {
+				g.setColor(button);
+				g.fillRect(0, 0, size, size);
+				if (size >= 4) {
+					g.draw3DRect(0, 0, size - 1, size - 1, true);
+				}
+			}
+			else {
+				g.setColor(i == MINE ? Color.RED : i == FLAG ? Color.BLUE : i == BLACK ? Color.BLACK
+						: i == GREEN ? Color.GREEN : getFill());
+				g.fillRect(0, 0, size, size);
+			}
+			g.dispose();
+			imagePixels[i] = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		}
+		imageSize = size;
+	}
+
+	// Setters
+	/**
+	 * Draws another mine field, which may be of another size or endless, zoomed to fit if it is bounded and
+	 * at the preferred cell size around its first cell if it is endless.
+	 * Input: the mine field
+	 */
+	public void setSource(CellSource source) {
+		this.source = source;
+		density = null;
+		clearDirty();
+		updatePreferredSize();
+		fitToWindow();
+		revalidate();
+		markAllDirty();
+	}
+
+	public void setVictory(boolean victory) {
+		this.victory = victory;
+		markAllDirty();
+	}
+
+}
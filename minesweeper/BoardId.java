@@ -0,0 +1,184 @@
+package minesweeper;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * The ID of a mine field: everything needed to place its mines again, exactly, in a short string that players
+ * can share. A mine field is defined by its size, its number of mines, the seed its mines are placed from,
+ * and, if the first click is safe, the cell the first click was on.
+ *
+ * The string is the URL-safe Base64 form, without padding, of these bytes:
+ * - a flags byte, with SAFE_FIRST_CLICK set if the first click is safe, and RECTANGULAR set if the mine field
+ *   isn't square
+ * - the number of columns, then the number of rows if the mine field is rectangular, then the number of mines,
+ *   as varints
+ * - if the first click is safe, the number of its cell (row by row from the top left), as a varint
+ * - the seed, as 8 bytes in big-endian order
+ * An expert field of 30 by 16 cells takes 18 or 19 characters.
+ *
+ * IDs are equal when they define the same mine field, so they can be used as keys in place of the mine
+ * fields themselves: making a mine field again only takes the random numbers for its mines.
+ *
+ * @author Benjamin Revard
+ */
+public class BoardId {
+
+	public static final int SAFE_FIRST_CLICK = 0x01; // Flag set when the first click is safe
+	public static final int RECTANGULAR = 0x02; // Flag set when the numbers of columns and rows differ
+
+	private static final int MAX_BYTES = 1 + 5 + 5 + 5 + 5 + 8; // The largest number of bytes of an ID
+
+	private int width; // The number of columns of the mine field (> 0)
+	private int height; // The number of rows of the mine field (> 0)
+	private int mines; // The number of mines in the mine field (>= 0)
+	private long seed; // The seed the mines are placed from
+	private boolean safeFirstClick; // Whether the mines were kept clear of the first click
+	private int startCol; // The column of the first click if it is safe, or -1
+	private int startRow; // The row of the first click if it is safe, or -1
+
+	/**
+	 * Constructor: makes the ID of a mine field.
+	 * Input: the number of columns and the number of rows of the mine field, the number of mines in it, the seed,
+	 * whether the first click is safe, and the column and row of the first click, which are ignored unless it is safe
+	 */
+	public BoardId(int width, int height, int mines, long seed, boolean safeFirstClick, int startCol, int startRow) {
+		if (!Board.fits(width, height) || mines < 0 || mines > width * height) {
+			throw new IllegalArgumentException("No mine field of " + width + "x" + height + " has " + mines + " mines");
+		}
+		else if (safeFirstClick && (startCol < 0 || startCol >= width || startRow < 0 || startRow >= height)) {
+			throw new IllegalArgumentException("The first click is outside the mine field");
+		}
+		this.width = width;
+		this.height = height;
+		this.mines = mines;
+		this.seed = seed;
+		this.safeFirstClick = safeFirstClick;
+		this.startCol = safeFirstClick ? startCol : -1;
+		this.startRow = safeFirstClick ? startRow : -1;
+	}
+
+	/**
+	 * Reads an ID from its string.
+	 * Input: the string, as returned by toString
+	 */
+	public static BoardId parse(String text) {
+		byte[] bytes;
+		try {
+			bytes = Base64.getUrlDecoder().decode(text.trim());
+		}
+		catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Not a board ID: " + text, e);
+		}
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			int flags = buffer.get();
+			long width = Varint.getVarLong(buffer);
+			long height = (flags & RECTANGULAR) != 0 ? Varint.getVarLong(buffer) : width;
+			long mines = Varint.getVarLong(buffer);
+			boolean safe = (flags & SAFE_FIRST_CLICK) != 0;
+			long start = safe ? Varint.getVarLong(buffer) : 0;
+			long seed = buffer.getLong();
+			if ((flags & ~(SAFE_FIRST_CLICK | RECTANGULAR)) != 0 || buffer.hasRemaining() || width > Integer.MAX_VALUE
+					|| height > Integer.MAX_VALUE || !Board.fits((int) width, (int) height) || mines < 0
+					|| mines > width * height || start < 0 || start >= width * height) {
+				throw new IllegalArgumentException("Not a board ID: " + text);
+			}
+			return new BoardId((int) width, (int) height, (int) mines, seed, safe, (int) (start % width),
+					(int) (start / width));
+		}
+		catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Not a board ID: " + text, e);
+		}
+	}
+
+	/**
+	 * Makes a new model of this mine field, with its first click made if it is safe, since that is what
+	 * places the mines. Later games on the model are seeded from this one.
+	 */
+	public Model createModel() {
+		Model model = new Model(width, height, mines, seed, safeFirstClick);
+		if (safeFirstClick) {
+			model.reveal(startCol, startRow);
+		}
+		return model;
+	}
+
+	/**
+	 * Returns the string of this ID.
+	 */
+	public String toString() {
+		ByteBuffer buffer = ByteBuffer.allocate(MAX_BYTES);
+		buffer.put((byte) ((safeFirstClick ? SAFE_FIRST_CLICK : 0) | (width != height ? RECTANGULAR : 0)));
+		Varint.putVarLong(buffer, width);
+		if (width != height) {
+			Varint.putVarLong(buffer, height);
+		}
+		Varint.putVarLong(buffer, mines);
+		if (safeFirstClick) {
+			Varint.putVarLong(buffer, (long) startRow * width + startCol);
+		}
+		buffer.putLong(seed);
+		byte[] bytes = new byte[buffer.position()];
+		buffer.flip().get(bytes);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	/**
+	 * Checks whether another object is the ID of the same mine field.
+	 * Input: the other object
+	 */
+	public boolean equals(Object other) {
+		if (!(other instanceof BoardId)) {
+			return false;
+		}
+		BoardId id = (BoardId) other;
+		return width == id.width && height == id.height && mines == id.mines && seed == id.seed
+				&& safeFirstClick == id.safeFirstClick && startCol == id.startCol && startRow == id.startRow;
+	}
+
+	/**
+	 * Returns a hash code consistent with equals.
+	 */
+	public int hashCode() {
+		int hash = Long.hashCode(seed);
+		hash = 31 * hash + width;
+		hash = 31 * hash + height;
+		hash = 31 * hash + mines;
+		hash = 31 * hash + (safeFirstClick ? 1 : 0);
+		hash = 31 * hash + startCol;
+		hash = 31 * hash + startRow;
+		return hash;
+	}
+
+	// Getters
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getMines() {
+		return mines;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public boolean getIsSafeFirstClick() {
+		return safeFirstClick;
+	}
+
+	public int getStartCol() {
+		return startCol;
+	}
+
+	public int getStartRow() {
+		return startRow;
+	}
+
+}
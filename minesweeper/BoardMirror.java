@@ -0,0 +1,66 @@
+package minesweeper;
+
+/**
+ * The copy of the mine field that the view paints, which belongs to the event dispatch thread. The game
+ * thread never touches it: it sends what changed in render deltas, which the event dispatch thread applies
+ * here. The model itself is only ever used by the game thread, so neither needs locks.
+ *
+ * @author Benjamin Revard
+ */
+public class BoardMirror implements CellSource {
+
+	private Board board; // The copy of the cells
+
+	/**
+	 * Constructor: makes a mirror of a board.
+	 * Input: a copy of the board, which the mirror keeps
+	 */
+	public BoardMirror(Board board) {
+		this.board = board;
+	}
+
+	/**
+	 * Replaces every cell with those of another board. Returns whether the size of the mine field changed.
+	 * Input: a copy of the board, which the mirror keeps
+	 */
+	boolean set(Board copy) {
+		boolean resized = copy.getWidth() != board.getWidth() || copy.getHeight() != board.getHeight();
+		board = copy;
+		return resized;
+	}
+
+	/**
+	 * Sets every bit of a cell.
+	 * Input: the index of the cell on the board, and its bits, packed as in Board
+	 */
+	void setState(int index, int state) {
+		board.setState(index, state);
+	}
+
+	/**
+	 * Copies a run of cells of one row, packed as in Board. Cells outside the mine field are copied as
+	 * border cells.
+	 * Input: the column of the first cell and its row, the number of cells, and the array to copy them to
+	 */
+	public void copyRow(int col, int row, int count, byte[] into) {
+		board.copyRow(col, row, count, into);
+	}
+
+	// Getters
+	public Board getBoard() {
+		return board;
+	}
+
+	public boolean getIsBounded() {
+		return true;
+	}
+
+	public int getWidth() {
+		return board.getWidth();
+	}
+
+	public int getHeight() {
+		return board.getHeight();
+	}
+
+}
@@ -0,0 +1,23 @@
+package minesweeper;
+
+/**
+ * A source of mine fields for new games, such as fields with random mines, or fields that can be solved
+ * without guessing. A board supply calls it from its own threads to keep games ready.
+ *
+ * @author Benjamin Revard
+ */
+public interface BoardSource {
+
+	/**
+	 * Makes the seeded model of a new game.
+	 * Input: the seed the model places its mines from
+	 */
+	Model create(long seed);
+
+	/**
+	 * Makes the model of a finished game ready for a new game, reusing its storage.
+	 * Input: a model this source created, and the seed the new game places its mines from
+	 */
+	void prepare(Model model, long seed);
+
+}
@@ -0,0 +1,180 @@
+package minesweeper;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An instance keeps the models of a few new games ready, so that starting a game only takes one from a queue.
+ *
+ * Background threads of low priority fill the queue from a board source. The models of finished games are
+ * handed back and made ready again on those threads, reusing their storage, so neither clearing a large mine
+ * field nor placing its mines happens on the event dispatch thread. When no model is ready, one is made on
+ * the calling thread; the metrics count how often that happens, as supply misses. If the source fails, as
+ * a no-guess generator does on a size it can't solve, the threads stop and taking a model throws the error.
+ *
+ * @author Benjamin Revard
+ */
+public class BoardSupply {
+
+	private BoardSource source; // The source of the models
+	private BlockingQueue<Model> ready; // The models ready for a new game
+	private BlockingQueue<Model> used; // The models of finished games, waiting to be made ready again
+	private Thread[] workers; // The threads that fill the queue, or null if they aren't running
+	private SplittableRandom random; // The source of the seeds of new games
+	private AtomicLong created; // The number of models made (>= 0)
+	private AtomicLong renewed; // The number of used models made ready again (>= 0)
+	private volatile RuntimeException failure; // What the source threw on a thread, or null
+
+	/**
+	 * Constructor: makes a supply of models from this source. No model is made until it is started.
+	 * Input: the source, and the number of models to keep ready (> 0)
+	 */
+	public BoardSupply(BoardSource source, int capacity) {
+		this.source = source;
+		this.ready = new ArrayBlockingQueue<Model>(capacity);
+		this.used = new ArrayBlockingQueue<Model>(capacity);
+		this.random = new SplittableRandom();
+		this.created = new AtomicLong();
+		this.renewed = new AtomicLong();
+	}
+
+	/**
+	 * Starts the threads that fill the queue. They are daemon threads of the lowest priority, so they
+	 * give way to the game and don't keep the application running.
+	 * Input: the number of threads (> 0)
+	 */
+	public synchronized void start(int threads) {
+		if (workers != null) {
+			return;
+		}
+		workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread(this::fill, "board-supply-" + i);
+			workers[i].setDaemon(true);
+			workers[i].setPriority(Thread.MIN_PRIORITY);
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Stops the threads. The models already ready stay in the queue.
+	 */
+	public synchronized void stop() {
+		if (workers == null) {
+			return;
+		}
+		for (Thread worker : workers) {
+			worker.interrupt();
+		}
+		workers = null;
+	}
+
+	/**
+	 * Returns the model of a new game: one from the queue if there is one, or else one made on the calling thread.
+	 * If the source failed on a thread and no model is ready, the error is thrown instead.
+	 */
+	public Model take() {
+		Model model = ready.poll();
+		if (model != null) {
+			if (Metrics.ENABLED) {
+				Metrics.get().recordSupply(true);
+			}
+			return model;
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		if (Metrics.ENABLED) {
+			Metrics.get().recordSupply(false);
+		}
+		Model recycled = used.poll();
+		if (recycled != null) {
+			return renew(recycled);
+		}
+		return create();
+	}
+
+	/**
+	 * Hands back the model of a finished game, to be made ready again in the background.
+	 * The caller must not use the model afterwards. If enough models are waiting already, it is dropped.
+	 * Input: a model taken from this supply
+	 */
+	public void recycle(Model model) {
+		used.offer(model);
+	}
+
+	/**
+	 * Makes models and puts them in the queue, preferring to reuse those of finished games, until the
+	 * thread is interrupted or the source fails.
+	 */
+	private void fill() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				Model recycled = used.poll();
+				ready.put(recycled != null ? renew(recycled) : create());
+			}
+		}
+		catch (InterruptedException e) {
+			// The supply was stopped
+		}
+		catch (RuntimeException e) {
+			failure = e;
+		}
+	}
+
+	/**
+	 * Makes a new model from the source.
+	 */
+	private Model create() {
+		long started = Metrics.ENABLED ? System.nanoTime() : 0;
+		created.incrementAndGet();
+		Model model = source.create(nextSeed());
+		if (Metrics.ENABLED) {
+			Metrics.get().recordGeneration(System.nanoTime() - started);
+		}
+		return model;
+	}
+
+	/**
+	 * Makes a used model ready for a new game.
+	 * Input: the model
+	 */
+	private Model renew(Model model) {
+		long started = Metrics.ENABLED ? System.nanoTime() : 0;
+		source.prepare(model, nextSeed());
+		if (Metrics.ENABLED) {
+			Metrics.get().recordGeneration(System.nanoTime() - started);
+		}
+		renewed.incrementAndGet();
+		return model;
+	}
+
+	/**
+	 * Returns the seed of the next game.
+	 */
+	private long nextSeed() {
+		synchronized (random) {
+			return random.nextLong();
+		}
+	}
+
+	// Getters
+	public BoardSource getSource() {
+		return source;
+	}
+
+	public int getReady() {
+		return ready.size();
+	}
+
+	public long getCreated() {
+		return created.get();
+	}
+
+	public long getRenewed() {
+		return renewed.get();
+	}
+
+}
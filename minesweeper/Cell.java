@@ -2,71 +2,49 @@ package minesweeper;
 
 /**
  * An instance represents a cell in the mine field, which is a component of the model.
- * 
+ * A cell holds no state of its own: it is a lightweight, read-only view of one entry of
+ * the packed board, and is only created when the model is asked for it. Changes to a cell
+ * go through the model, which keeps track of the state of the game.
+ *
  * @author Benjamin Revard
  */
 public class Cell {
 
-	    private int column; // The column where this cell lives (>= 0 and < length)
-	    private int row; // The row where this cell lives (>= 0 and < length)
-		private int value; // The value of this cell (0-9)
-		private boolean isMine; // Whether this cell is a mine
-		private boolean leftClicked; // Whether this cell has been left clicked
-		private boolean rightClicked; // Whether this cell has been right clicked
-		
+	    private Board board; // The packed board holding the state of this cell
+	    private int index; // The index of this cell in the packed board
+
 		/**
-		 * Constructor: makes a new cell object with default attributes.
-		 * Input: the column and row of the cell
+		 * Constructor: makes a new view of a cell of the board.
+		 * Input: the board and the index of the cell
 		 */
-		Cell(int col, int row) {
-			this.column = col;
-			this.row = row;
-			value = 0;
-			isMine = false;
-			leftClicked = false;
-			rightClicked = false;
+		Cell(Board board, int index) {
+			this.board = board;
+			this.index = index;
 		}
-		
-		// Getters	
+
+		// Getters
 		public int getValue() {
-			return value;
+			return board.getValue(index);
 		}
-		
+
 		public boolean getIsMine() {
-			return isMine; 
+			return board.isMine(index);
 		}
-		
+
 		public int getColumn() {
-			return column;
+			return board.column(index);
 		}
-		
+
 		public int getRow() {
-			return row;
+			return board.row(index);
 		}
-		
+
 		public boolean getLeftClicked() {
-			return leftClicked;
+			return board.isRevealed(index);
 		}
-		
+
 		public boolean getRightClicked() {
-			return rightClicked;
-		}
-		
-		// Setters
-		public void setValue(int Value) {
-			value = Value;
-		}
-		
-		public void setIsMine(boolean IsMine) {
-			isMine = IsMine;
+			return board.isFlagged(index);
 		}
-		
-		public void setLeftClicked(boolean clicked) {
-			leftClicked = clicked;
-		}
-		
-		public void setRightClicked(boolean clicked) {
-			rightClicked = clicked;
-		}
-		
+
 }
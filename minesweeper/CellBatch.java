@@ -0,0 +1,78 @@
+package minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * An instance holds the cells revealed by one action on an endless model, as a compact list of
+ * column and row pairs packed into longs. Like RevealBatch, the flood fill also uses the batch as
+ * its work queue.
+ *
+ * A model reuses its batch for every reveal, so the contents are only valid until the next reveal
+ * on the same model.
+ *
+ * @author Benjamin Revard
+ */
+public class CellBatch {
+
+	private long[] cells; // The packed cells, in the order they were revealed
+	private int size; // The number of cells in the batch (>= 0)
+
+	/**
+	 * Constructor: makes a new, empty batch.
+	 */
+	CellBatch() {
+		cells = new long[64];
+		size = 0;
+	}
+
+	/**
+	 * Returns a cell packed into a long.
+	 * Input: the column and row of the cell
+	 */
+	public static long pack(int col, int row) {
+		return (long) col << 32 | (row & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Empties the batch without releasing its storage.
+	 */
+	void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Adds a cell to the end of the batch, growing the storage if needed.
+	 * Input: the column and row of the cell
+	 */
+	void add(int col, int row) {
+		if (size == cells.length) {
+			cells = Arrays.copyOf(cells, size * 2);
+		}
+		cells[size++] = pack(col, row);
+	}
+
+	/**
+	 * Returns the i-th cell, packed.
+	 * Input: the position in the batch
+	 */
+	public long get(int i) {
+		return cells[i];
+	}
+
+	public int getColumn(int i) {
+		return (int) (cells[i] >> 32);
+	}
+
+	public int getRow(int i) {
+		return (int) cells[i];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+}
@@ -0,0 +1,34 @@
+package minesweeper;
+
+/**
+ * The cells of a mine field as the board component paints them: either a model of a mine field of fixed
+ * size, or an endless one. Cells are read a row at a time, in the packed form of Board, so painting a large
+ * area costs one call per row rather than one per cell.
+ *
+ * @author Benjamin Revard
+ */
+public interface CellSource {
+
+	/**
+	 * Returns whether the mine field has a fixed number of columns and rows.
+	 */
+	boolean getIsBounded();
+
+	/**
+	 * Returns the number of columns of the mine field, or 0 if it has no bounds.
+	 */
+	int getWidth();
+
+	/**
+	 * Returns the number of rows of the mine field, or 0 if it has no bounds.
+	 */
+	int getHeight();
+
+	/**
+	 * Copies a run of cells of one row, packed as in Board. Cells outside a bounded mine field have the
+	 * BORDER bit set.
+	 * Input: the column of the first cell and its row, the number of cells, and the array to copy them to
+	 */
+	void copyRow(int col, int row, int count, byte[] into);
+
+}
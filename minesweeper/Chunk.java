@@ -0,0 +1,139 @@
+package minesweeper;
+
+/**
+ * A square block of cells of an endless mine field. Each cell takes one byte, laid out as in Board (value,
+ * mine, revealed and flagged bits), row by row. Chunks have no border: the neighbors of a cell on an edge are
+ * in the next chunk, and are reached through the chunk store.
+ *
+ * @author Benjamin Revard
+ */
+public class Chunk {
+
+	public static final int BITS = 6; // The log of the number of cells along a side of a chunk
+	public static final int SIZE = 1 << BITS; // The number of cells along a side of a chunk
+	public static final int MASK = SIZE - 1; // The bits of a coordinate that give its place in its chunk
+	public static final int CELLS = SIZE * SIZE; // The number of cells of a chunk
+
+	private int chunkX; // The column of the chunk, counting in chunks
+	private int chunkY; // The row of the chunk, counting in chunks
+	private byte[] cells; // One byte per cell, row by row
+	private int touched; // The number of cells revealed or flagged (>= 0)
+	private boolean modified; // Whether cells have been revealed or flagged since the chunk was last saved
+	private long lastUsed; // When the chunk was last used, in accesses of the store
+
+	/**
+	 * Constructor: makes a chunk whose cells are all hidden, with no mines.
+	 * Input: the column and row of the chunk, counting in chunks
+	 */
+	Chunk(int chunkX, int chunkY) {
+		this.chunkX = chunkX;
+		this.chunkY = chunkY;
+		this.cells = new byte[CELLS];
+	}
+
+	/**
+	 * Returns the index of a cell in the chunk.
+	 * Input: the column and row of the cell in the whole mine field
+	 */
+	public static int index(int col, int row) {
+		return (row & MASK) << BITS | (col & MASK);
+	}
+
+	/**
+	 * Reveals this cell, unless it is already revealed or flagged. Returns whether it was revealed.
+	 * Input: the index of the cell
+	 */
+	boolean reveal(int index) {
+		if ((cells[index] & (Board.REVEALED | Board.FLAGGED)) != 0) {
+			return false;
+		}
+		cells[index] |= Board.REVEALED;
+		touched++;
+		modified = true;
+		return true;
+	}
+
+	/**
+	 * Places a flag on this cell if it has none, or removes the flag if it has one. Returns whether the
+	 * cell is flagged afterwards, or false if it is revealed.
+	 * Input: the index of the cell
+	 */
+	boolean toggleFlag(int index) {
+		if ((cells[index] & Board.REVEALED) != 0) {
+			return false;
+		}
+		cells[index] ^= Board.FLAGGED;
+		boolean flagged = (cells[index] & Board.FLAGGED) != 0;
+		touched += flagged ? 1 : -1;
+		modified = true;
+		return flagged;
+	}
+
+	/**
+	 * Sets the revealed and flagged bits of a cell, as when the chunk is read back from disk.
+	 * Input: the index of the cell, and whether it is revealed and whether it is flagged
+	 */
+	void restore(int index, boolean revealed, boolean flagged) {
+		cells[index] &= ~(Board.REVEALED | Board.FLAGGED);
+		if (revealed) {
+			cells[index] |= Board.REVEALED;
+		}
+		if (flagged) {
+			cells[index] |= Board.FLAGGED;
+		}
+		if (revealed || flagged) {
+			touched++;
+		}
+	}
+
+	// Getters
+	public int getChunkX() {
+		return chunkX;
+	}
+
+	public int getChunkY() {
+		return chunkY;
+	}
+
+	public int getValue(int index) {
+		return cells[index] & Board.VALUE;
+	}
+
+	public boolean isMine(int index) {
+		return (cells[index] & Board.MINE) != 0;
+	}
+
+	public boolean isRevealed(int index) {
+		return (cells[index] & Board.REVEALED) != 0;
+	}
+
+	public boolean isFlagged(int index) {
+		return (cells[index] & Board.FLAGGED) != 0;
+	}
+
+	public int getTouched() {
+		return touched;
+	}
+
+	boolean getIsModified() {
+		return modified;
+	}
+
+	long getLastUsed() {
+		return lastUsed;
+	}
+
+	byte[] getCells() {
+		return cells;
+	}
+
+	// Setters
+	void setModified(boolean modified) {
+		this.modified = modified;
+	}
+
+	void setLastUsed(long lastUsed) {
+		this.lastUsed = lastUsed;
+	}
+
+}
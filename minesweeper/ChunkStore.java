@@ -0,0 +1,341 @@
+package minesweeper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The chunks of an endless mine field, made when they are first reached and kept in memory up to a limit.
+ *
+ * The mines of a chunk depend only on the seed of the field and the position of the chunk: a fixed number of
+ * them are placed with Floyd's sampling algorithm, from a random generator seeded with the seed of the field
+ * mixed with that position. The values of the cells near its edges count mines of the neighboring chunks, so
+ * making a chunk places the mines of its eight neighbors too, in a scratch area, without keeping those chunks.
+ * The three by three cells around the origin never hold mines, so a game can always start there.
+ *
+ * When more chunks are in memory than the limit, the quarter used longest ago are dropped. Since the mines of
+ * a dropped chunk can be placed again, only what the player did to it is kept, and only if the player did
+ * anything: the revealed and flagged cells, as two bit planes in a spill file on disk. A chunk read back from
+ * the spill file is made again and has the planes applied. Memory therefore grows with the chunks in use,
+ * and disk with the chunks the player has touched, whatever the size of the field.
+ *
+ * Looking up a chunk goes first through a small direct-mapped cache of recently used chunks, indexed by the
+ * low bits of the chunk position, so a flood fill moving between neighboring chunks rarely touches the map.
+ *
+ * An instance is not thread-safe. Errors reading or writing the spill file are thrown as UncheckedIOException,
+ * since they can happen in the middle of any move.
+ *
+ * @author Benjamin Revard
+ */
+public class ChunkStore {
+
+	private static final int MIN_CAPACITY = 16; // The smallest number of chunks kept in memory
+	private static final int FRONT_BITS = 3; // The log of the number of chunks along a side of the front cache
+	private static final int FRONT_MASK = (1 << FRONT_BITS) - 1; // The bits of a chunk position in the front cache
+	private static final int PADDED = Chunk.SIZE + 2; // The length of a side of the scratch area
+	private static final int PLANE_BYTES = Chunk.CELLS / 8; // The number of bytes of a bit plane of a chunk
+	private static final int SPILL_BYTES = 2 * PLANE_BYTES; // The number of bytes of a chunk in the spill file
+
+	private long seed; // The seed of the mine field
+	private int minesPerChunk; // The number of mines placed in each chunk (>= 0 and <= Chunk.CELLS)
+	private int capacity; // The largest number of chunks kept in memory (>= MIN_CAPACITY)
+	private Map<Long, Chunk> chunks; // The chunks in memory, by key
+	private Chunk[] front; // The chunks most recently used, by the low bits of their position
+	private Map<Long, Integer> slots; // The places in the spill file of the chunks written to it, by key
+	private Path directory; // The directory of the spill file, or null for the temporary directory
+	private FileChannel spill; // The spill file, created when first needed, or null
+	private ByteBuffer spillBuffer; // The planes of a chunk being written or read
+	private long clock; // The number of times a chunk has been looked up (>= 0)
+	private SeededRandom random; // The random generator of the mines, seeded again for every chunk
+	private long[] taken; // The cells of a chunk already chosen as mines, one bit each
+	private byte[] padded; // The mines of a chunk and of the edges of its neighbors, with a one cell margin
+	private long generated; // The number of chunks made (>= 0)
+	private long reloaded; // The number of chunks read back from the spill file (>= 0)
+	private long written; // The number of times a chunk was written to the spill file (>= 0)
+	private long evicted; // The number of chunks dropped from memory (>= 0)
+
+	/**
+	 * Constructor: makes an empty store.
+	 * Input: the seed of the mine field, the number of mines in each chunk, the largest number of chunks to
+	 * keep in memory, and the directory of the spill file, or null for the temporary directory
+	 */
+	public ChunkStore(long seed, int minesPerChunk, int capacity, Path directory) {
+		if (minesPerChunk < 0 || minesPerChunk > Chunk.CELLS - 9) {
+			throw new IllegalArgumentException("A chunk can't hold " + minesPerChunk + " mines");
+		}
+		this.seed = seed;
+		this.minesPerChunk = minesPerChunk;
+		this.capacity = Math.max(MIN_CAPACITY, capacity);
+		this.directory = directory;
+		this.chunks = new HashMap<Long, Chunk>();
+		this.front = new Chunk[1 << (2 * FRONT_BITS)];
+		this.slots = new HashMap<Long, Integer>();
+		this.random = new SeededRandom(seed);
+		this.taken = new long[Chunk.CELLS / 64];
+		this.padded = new byte[PADDED * PADDED];
+	}
+
+	/**
+	 * Returns the chunk holding a cell, making it or reading it back if it isn't in memory.
+	 * Input: the column and row of the cell
+	 */
+	public Chunk getChunkOf(int col, int row) {
+		return get(col >> Chunk.BITS, row >> Chunk.BITS);
+	}
+
+	/**
+	 * Returns a chunk, making it or reading it back if it isn't in memory.
+	 * Input: the column and row of the chunk, counting in chunks
+	 */
+	public Chunk get(int chunkX, int chunkY) {
+		int slot = (chunkY & FRONT_MASK) << FRONT_BITS | (chunkX & FRONT_MASK);
+		Chunk chunk = front[slot];
+		if (chunk == null || chunk.getChunkX() != chunkX || chunk.getChunkY() != chunkY) {
+			long key = key(chunkX, chunkY);
+			chunk = chunks.get(key);
+			if (chunk == null) {
+				chunk = load(chunkX, chunkY, key);
+				chunk.setLastUsed(++clock);
+				chunks.put(key, chunk);
+				if (chunks.size() > capacity) {
+					evict();
+				}
+			}
+			front[slot] = chunk;
+		}
+		chunk.setLastUsed(++clock);
+		return chunk;
+	}
+
+	/**
+	 * Returns a chunk if it is in memory, or else null, without making or reading it.
+	 * Input: the column and row of the chunk, counting in chunks
+	 */
+	public Chunk peek(int chunkX, int chunkY) {
+		return chunks.get(key(chunkX, chunkY));
+	}
+
+	/**
+	 * Returns the key of a chunk in the maps.
+	 * Input: the column and row of the chunk, counting in chunks
+	 */
+	private static long key(int chunkX, int chunkY) {
+		return (long) chunkX << 32 | (chunkY & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Makes a chunk, and applies what the player did to it if it was written to the spill file.
+	 * Input: the column and row of the chunk, counting in chunks, and its key
+	 */
+	private Chunk load(int chunkX, int chunkY, long key) {
+		Chunk chunk = generate(chunkX, chunkY);
+		Integer slot = slots.get(key);
+		if (slot != null) {
+			try {
+				spillBuffer.clear();
+				while (spillBuffer.hasRemaining()) {
+					if (spill.read(spillBuffer, (long) slot * SPILL_BYTES + spillBuffer.position()) < 0) {
+						throw new IOException("The spill file is truncated");
+					}
+				}
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			for (int i = 0; i < Chunk.CELLS; i++) {
+				int bit = 1 << (i & 7);
+				boolean revealed = (spillBuffer.get(i >> 3) & bit) != 0;
+				boolean flagged = (spillBuffer.get(PLANE_BYTES + (i >> 3)) & bit) != 0;
+				if (revealed || flagged) {
+					chunk.restore(i, revealed, flagged);
+				}
+			}
+			reloaded++;
+		}
+		return chunk;
+	}
+
+	/**
+	 * Makes a chunk: places its mines, and sets the values of its cells from its mines and those of its
+	 * neighbors.
+	 * Input: the column and row of the chunk, counting in chunks
+	 */
+	private Chunk generate(int chunkX, int chunkY) {
+		Arrays.fill(padded, (byte) 0);
+		for (int dy = -1; dy <= 1; dy++) {
+			for (int dx = -1; dx <= 1; dx++) {
+				placeMines(chunkX + dx, chunkY + dy, dx, dy);
+			}
+		}
+		Chunk chunk = new Chunk(chunkX, chunkY);
+		byte[] cells = chunk.getCells();
+		for (int y = 0; y < Chunk.SIZE; y++) {
+			for (int x = 0; x < Chunk.SIZE; x++) {
+				int p = (y + 1) * PADDED + x + 1;
+				if (padded[p] != 0) {
+					cells[y << Chunk.BITS | x] = (byte) (Board.MINE | 9);
+				}
+				else {
+					int above = padded[p - PADDED - 1] + padded[p - PADDED] + padded[p - PADDED + 1];
+					int below = padded[p + PADDED - 1] + padded[p + PADDED] + padded[p + PADDED + 1];
+					cells[y << Chunk.BITS | x] = (byte) (above + padded[p - 1] + padded[p + 1] + below);
+				}
+			}
+		}
+		generated++;
+		return chunk;
+	}
+
+	/**
+	 * Places the mines of a chunk in the scratch area, keeping those that fall inside it.
+	 * Input: the column and row of the chunk, counting in chunks, and its position relative to the chunk
+	 * being made (-1, 0 or 1 each way)
+	 */
+	private void placeMines(int chunkX, int chunkY, int dx, int dy) {
+		random.setSeed(seed ^ key(chunkX, chunkY));
+		Arrays.fill(taken, 0);
+		for (int j = Chunk.CELLS - minesPerChunk; j < Chunk.CELLS; j++) {
+			int cell = random.nextInt(j + 1);
+			if ((taken[cell >> 6] & (1L << cell)) != 0) {
+				cell = j;
+			}
+			taken[cell >> 6] |= 1L << cell;
+			int x = cell & Chunk.MASK;
+			int y = cell >> Chunk.BITS;
+			int col = chunkX * Chunk.SIZE + x;
+			int row = chunkY * Chunk.SIZE + y;
+			if (col >= -1 && col <= 1 && row >= -1 && row <= 1) {
+				continue;
+			}
+			int px = dx * Chunk.SIZE + x + 1;
+			int py = dy * Chunk.SIZE + y + 1;
+			if (px >= 0 && px < PADDED && py >= 0 && py < PADDED) {
+				padded[py * PADDED + px] = 1;
+			}
+		}
+	}
+
+	/**
+	 * Drops the quarter of the chunks in memory used longest ago, writing those the player has changed
+	 * to the spill file.
+	 */
+	private void evict() {
+		ArrayList<Chunk> loaded = new ArrayList<Chunk>(chunks.values());
+		loaded.sort((a, b) -> Long.compare(a.getLastUsed(), b.getLastUsed()));
+		int count = chunks.size() - capacity * 3 / 4;
+		for (int i = 0; i < count; i++) {
+			Chunk chunk = loaded.get(i);
+			if (chunk.getIsModified()) {
+				write(chunk);
+			}
+			chunks.remove(key(chunk.getChunkX(), chunk.getChunkY()));
+			int slot = (chunk.getChunkY() & FRONT_MASK) << FRONT_BITS | (chunk.getChunkX() & FRONT_MASK);
+			if (front[slot] == chunk) {
+				front[slot] = null;
+			}
+			evicted++;
+		}
+	}
+
+	/**
+	 * Writes the revealed and flagged cells of a chunk to its place in the spill file, creating the file
+	 * or the place if needed.
+	 * Input: the chunk
+	 */
+	private void write(Chunk chunk) {
+		try {
+			if (spill == null) {
+				Path path = directory == null ? Files.createTempFile("endless-", ".chunks")
+						: Files.createTempFile(directory, "endless-", ".chunks");
+				spill = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+						StandardOpenOption.DELETE_ON_CLOSE);
+				spillBuffer = ByteBuffer.allocateDirect(SPILL_BYTES);
+			}
+			long key = key(chunk.getChunkX(), chunk.getChunkY());
+			Integer slot = slots.get(key);
+			if (slot == null) {
+				slot = slots.size();
+				slots.put(key, slot);
+			}
+			spillBuffer.clear();
+			for (int b = 0; b < SPILL_BYTES; b++) {
+				spillBuffer.put(b, (byte) 0);
+			}
+			for (int i = 0; i < Chunk.CELLS; i++) {
+				int bit = 1 << (i & 7);
+				if (chunk.isRevealed(i)) {
+					spillBuffer.put(i >> 3, (byte) (spillBuffer.get(i >> 3) | bit));
+				}
+				if (chunk.isFlagged(i)) {
+					spillBuffer.put(PLANE_BYTES + (i >> 3), (byte) (spillBuffer.get(PLANE_BYTES + (i >> 3)) | bit));
+				}
+			}
+			while (spillBuffer.hasRemaining()) {
+				spill.write(spillBuffer, (long) slot * SPILL_BYTES + spillBuffer.position());
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		chunk.setModified(false);
+		written++;
+	}
+
+	/**
+	 * Closes and deletes the spill file. The store must not be used afterwards.
+	 */
+	public void close() throws IOException {
+		if (spill != null) {
+			spill.close();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes of the spill file.
+	 */
+	public long getSpillBytes() {
+		return (long) slots.size() * SPILL_BYTES;
+	}
+
+	// Getters
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getMinesPerChunk() {
+		return minesPerChunk;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getLoaded() {
+		return chunks.size();
+	}
+
+	public long getGenerated() {
+		return generated;
+	}
+
+	public long getReloaded() {
+		return reloaded;
+	}
+
+	public long getWritten() {
+		return written;
+	}
+
+	public long getEvicted() {
+		return evicted;
+	}
+
+}
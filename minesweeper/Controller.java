@@ -1,149 +1,505 @@
 package minesweeper;
 
+import java.awt.datatransfer.StringSelection;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
 import javax.swing.*;
-import java.util.Timer;
-import java.util.TimerTask;
 
 /**
  * This is the controller of the MVC implementation of the mine sweeper game.
- * It interprets events from the GUI and updates instances of MineSweeperModel
- * and MineSweeperView as needed.
+ * It interprets events from the GUI as moves on the game engine, and updates
+ * instances of MineSweeperView as needed.
+ * 
+ * The moves are played on the game thread, not on the event dispatch thread: a click only submits a command
+ * to the game loop and returns, so a move that reveals millions of cells never freezes the window. The game
+ * thread is the only one to touch the model, the engine, the clock and the journal. What each batch of
+ * commands changed is gathered in a render delta and published to the event dispatch thread, which applies
+ * it to the board mirror the view paints, and to the counter, the timer and the victory message. Methods
+ * are marked with the thread they run on.
  * 
  * @author Benjamin Revard
  */
 public class Controller implements MouseListener {
 	
+	private static final int RESET = -1; // The click of the reset button, among the kinds of clicks
+	
+	// Owned by the game thread
 	private Model model; // The model of this MVC implementation of mine sweeper
+	private GameEngine engine; // The rules of the game, applied to the model
+	private GameClock clock; // How long the game has lasted
+	private BoardSupply supply; // The supply of the models of new games, or null to reuse the model
+	private boolean supplied; // Whether the model came from the supply, and can be handed back to it
+	private Path journalDirectory; // The directory the journals of games are written to, or null for none
+	private Journal journal; // The journal of the game being played, or null
+	private int action; // The kind of the action being handled, for the metrics, or -1 if it did nothing
+	private int uncovered; // The number of cells the action being handled uncovered (>= 0)
+	private RenderDelta delta; // What the commands of the batch being run changed
+	private DeltaPublisher publisher; // Hands the deltas over to the event dispatch thread
+	
+	// Owned by the event dispatch thread
 	private View view; // The view of this MVC implementation of mine sweeper
-	private Timer timer; // Timer object from java.util.Timer
-	private Time time; // The task for the timer
+	private BoardMirror mirror; // The copy of the mine field the view paints
+	private RenderDelta shownClock; // The last delta applied that read the clock, which the timer counts from
+	private Timer timer; // Swing timer that refreshes the time on display while the clock runs
+	private JFileChooser chooser; // The dialog to choose save files, created when first needed
+	
+	private GameLoop loop; // The game thread, which runs the commands
 	
 	/**
-	 * Constructor: initializes new timer and task objects.
-	 * Input: a model and a view
+	 * Constructor: initializes the clock, the timer that displays it, and the mirror of the mine field, and
+	 * starts the game thread. The timer is shared by every game, and fires on the event dispatch thread.
+	 * Input: a model, which belongs to the game thread from now on, and a view
 	 */
 	public Controller(Model model, View view) {
 		this.model = model;
 		this.view = view;
-		timer = new Timer();
-		time = new Time(); 
+		engine = new GameEngine(model);
+		clock = new GameClock();
+		mirror = new BoardMirror(model.getBoard().copy());
+		view.setSource(mirror, model.getMines());
+		shownClock = new RenderDelta();
+		timer = new Timer(250, e -> view.setTimer(shownClock.getSecondsAt(System.nanoTime())));
+		delta = new RenderDelta();
+		publisher = new DeltaPublisher(this::apply);
+		loop = new GameLoop("game", this::endBatch);
+		loop.start();
 	}
 	
 	/**
-	 * Determines what to do with a mouse event generated by the GUI.
+	 * Determines what to do with a mouse event generated by the GUI, and submits it to the game thread.
+	 * Runs on the event dispatch thread, and never waits for the game thread.
 	 * Input: a mouse event
 	 */
 	public void mouseClicked(MouseEvent e) {
+		long started = Metrics.ENABLED ? System.nanoTime() : 0;
 		
-		// Get the button that was clicked
-		JButton btn = (JButton) e.getSource();
-		
-		// Determine if the reset button or a field button was clicked, and take appropriate action
-		String name = btn.getText();
-		if (name == "Reset") {
+		// Determine if the reset button or the mine field was clicked, and take appropriate action
+		if (e.getSource() instanceof JButton) {
+			JButton btn = (JButton) e.getSource();
+			String name = btn.getText();
+			if (name == "Reset") {
+				loop.submit(() -> play(RESET, 0, 0, started));
+			}
+		}
+		else {
+			BoardComponent board = (BoardComponent) e.getSource();
+			int col = board.columnAt(e.getX());
+			int row = board.rowAt(e.getY());
+			if (col < 0 || row < 0) {
+				return;
+			}
+			int click;
+			if (isLeftClick(e)) {
+				click = isDoubleClick(e) ? Journal.CHORD : Journal.REVEAL;
+			}
+			else if (isRightClick(e)) {
+				click = Journal.FLAG;
+			}
+			else {
+				return;
+			}
+			loop.submit(() -> play(click, col, row, started));
+		}
+	}
+	
+	/**
+	 * Plays a click, and records how long it took from the click to the end of the move. Runs on the game
+	 * thread.
+	 * Input: the kind of click (RESET, or a reveal, chord or flag of Journal, a flag standing for a toggle),
+	 * the column and row of the cell clicked, and the value of System.nanoTime at the click
+	 */
+	private void play(int click, int col, int row, long started) {
+		action = -1;
+		uncovered = 0;
+		if (click == RESET) {
 			resetClicked();
 		}
 		else {
-			fieldClicked(e, btn);
-		}	
+			fieldClicked(click, col, row);
+		}
+		if (Metrics.ENABLED && action >= 0) {
+			Metrics.get().recordAction(action, System.nanoTime() - started, uncovered);
+		}
 	}
 	
 	/**
-	 * Resets the game by stopping the timer if needed, generating a new model, setting all the mine 
-	 * field buttons to the default background color and empty text, and making a new timer and task.
+	 * Resets the game by stopping and clearing the clock, clearing the model, and redrawing the mine field.
+	 * With a supply, the model is replaced by one the supply has ready instead, and handed back to be cleared
+	 * in the background. Runs on the game thread.
 	 */
 	private void resetClicked() {
 		
-		// stop the timer if needed
-		if (!model.hasWon() && !model.hasLost()) {
-			timer.cancel();
-		}
+		// stop and clear the clock, and end the journal
+		action = Metrics.RESET;
+		clock.reset();
+		closeJournal();
 		
 		// reset the model and view
-		int length = model.getLength();
-		int mines = model.getMines();
-		model = new Model(length, mines);
-		view.reset();
-		
-		// make and start a new timer
-		timer = new Timer();
-		time = new Time();
+		if (supply != null) {
+			Model finished = model;
+			model = supply.take();
+			engine.setModel(model);
+			if (supplied) {
+				supply.recycle(finished);
+			}
+			supplied = true;
+		}
+		else {
+			model.reset();
+		}
+		delta.setField(model, true);
+		delta.setCounter(model.getMines());
 	}
 	
 	/**
-	 * Processes a click on a mine field button and takes appropriate action.
-	 * Input: a mouse event and a button
+	 * Saves the game to a file the player chooses. The clock keeps running while the dialog is open.
+	 * The dialog runs on the event dispatch thread, and the game is written on the game thread.
 	 */
-	private void fieldClicked(MouseEvent e, JButton btn) {
-		
-		// Start the timer if this is the first click of the game
-		if (model.getIsNew()) {
-			timer.scheduleAtFixedRate(time, 0, 1000);
-			model.setIsNew(false);
+	public void saveClicked() {
+		if (getChooser().showSaveDialog(view) != JFileChooser.APPROVE_OPTION) {
+			return;
 		}
+		Path path = chooser.getSelectedFile().toPath();
+		loop.submit(() -> {
+			try {
+				GameFile.save(model, clock.getElapsedNanos(), path, true);
+			}
+			catch (IOException e) {
+				showError(e.getMessage(), "Save failed");
+			}
+		});
+	}
+	
+	/**
+	 * Replaces the game with one loaded from a file the player chooses, and carries on its clock
+	 * from where it was saved if the game had started and isn't over. The dialog runs on the event
+	 * dispatch thread, and the game is read on the game thread.
+	 */
+	public void loadClicked() {
+		if (getChooser().showOpenDialog(view) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		Path path = chooser.getSelectedFile().toPath();
+		loop.submit(() -> {
+			SavedGame saved;
+			try {
+				saved = GameFile.load(path);
+			}
+			catch (IOException e) {
+				showError(e.getMessage(), "Load failed");
+				return;
+			}
+			
+			show(saved.getModel(), saved.getElapsedNanos());
+		});
+	}
+	
+	/**
+	 * Shows an error message on the event dispatch thread. Called from the game thread.
+	 * Input: the message and the title of its dialog
+	 */
+	private void showError(String message, String title) {
+		SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(view, message, title,
+				JOptionPane.ERROR_MESSAGE));
+	}
+	
+	/**
+	 * Replaces the game with the mine field of a board ID the player enters.
+	 */
+	public void openBoardClicked() {
+		String text = JOptionPane.showInputDialog(view, "Board ID:", "Open board", JOptionPane.PLAIN_MESSAGE);
+		if (text == null || text.isBlank()) {
+			return;
+		}
+		try {
+			openBoard(BoardId.parse(text));
+		}
+		catch (IllegalArgumentException e) {
+			JOptionPane.showMessageDialog(view, e.getMessage(), "Open failed", JOptionPane.ERROR_MESSAGE);
+		}
+	}
+	
+	/**
+	 * Copies the board ID of the game to the clipboard, so the mine field can be shared.
+	 * A mine field whose first click is safe has no ID until that click. The ID is read on the game thread,
+	 * and copied on the event dispatch thread.
+	 */
+	public void copyBoardIdClicked() {
+		loop.submit(() -> {
+			BoardId id = model.getBoardId();
+			SwingUtilities.invokeLater(() -> copyBoardId(id));
+		});
+	}
+	
+	/**
+	 * Copies a board ID to the clipboard, or tells the player there is none. Runs on the event dispatch thread.
+	 * Input: the board ID, or null
+	 */
+	private void copyBoardId(BoardId id) {
+		if (id == null) {
+			JOptionPane.showMessageDialog(view, "This mine field has no ID yet.", "Copy board ID",
+					JOptionPane.INFORMATION_MESSAGE);
+			return;
+		}
+		view.getToolkit().getSystemClipboard().setContents(new StringSelection(id.toString()), null);
+	}
+	
+	/**
+	 * Replaces the game with a new game on the mine field of a board ID. If the first click of the mine field
+	 * is safe, it has been made, so the clock starts straight away. The mine field is made on the game thread.
+	 * Input: the board ID
+	 */
+	public void openBoard(BoardId id) {
+		loop.submit(() -> show(id.createModel(), 0));
+	}
+	
+	/**
+	 * Replaces the game with one from outside the supply, and carries on its clock from the time given
+	 * if the game has started and isn't over. Runs on the game thread.
+	 * Input: the model of the game, and how long it has lasted in nanoseconds
+	 */
+	private void show(Model shown, long elapsedNanos) {
 		
-		// Get the type of mouse click
-		boolean isLeftClick = isLeftClick(e);
-		boolean isRightClick = isRightClick(e);
-		boolean isDoubleClick = isDoubleClick(e);
-					
-		// Get all the information for the mine field button
-		int col = (int) btn.getClientProperty("column");
-		int row = (int) btn.getClientProperty("row");
-		int val = model.getCells()[col][row].getValue();
-		boolean isMine = model.getCells()[col][row].getIsMine();
-		boolean leftClicked = model.getCells()[col][row].getLeftClicked();
-		boolean rightClicked = model.getCells()[col][row].getRightClicked();
-		int numFlagNeighbors = model.getNumFlaggedNeighbors(col, row); 
-					
-		// Take the appropriate action
-		if (isMine && isLeftClick && !rightClicked) {
-			mineClicked();
-		}
-		else if (!leftClicked && !rightClicked && isLeftClick) {
-			model.getCells()[col][row].setLeftClicked(true);
-			view.showValue(col, row, val);
-			if (val == 0) { 
-				zeroClicked(col, row);
+		// set the clock to the time given, end the journal, and show the model
+		clock.startFrom(elapsedNanos);
+		closeJournal();
+		model = shown;
+		supplied = false;
+		engine.setModel(model);
+		delta.setField(model, true);
+		delta.setCounter(model.getMines() - model.getFlags());
+		if (engine.getStatus() == GameStatus.WON) {
+			clock.stop();
+			delta.setVictory(true);
+		}
+		else if (!engine.isOver() && !model.getIsNew()) {
+			openJournal();
+		}
+		else {
+			clock.stop();
+		}
+	}
+	
+	/**
+	 * Ends a batch of commands by publishing what they changed, along with the clock. Runs on the game thread,
+	 * each time it runs out of commands.
+	 */
+	private void endBatch() {
+		delta.setClock(clock);
+		publisher.publish(delta);
+		delta = new RenderDelta();
+	}
+	
+	/**
+	 * Applies what a batch of commands changed to the mirror and the view, then asks for one repaint of it.
+	 * Runs on the event dispatch thread.
+	 * Input: the delta
+	 */
+	private void apply(RenderDelta applied) {
+		if (applied.getField() != null) {
+			if (mirror.set(applied.getField())) {
+				view.setSource(mirror, applied.getMines());
 			}
-			if (model.hasWon()) {
-				timer.cancel();
-				view.showVictoryMsg();
+			else {
+				view.setMines(applied.getMines());
+				view.showAll();
 			}
 		}
-		else if (!rightClicked && !leftClicked && isRightClick) {
-			model.getCells()[col][row].setRightClicked(true);
-			model.incrementFlags(1);
-			view.placeFlag(col, row);
-			view.setCounter(model.getMines() - model.getFlags());
-			if (model.hasWon()) {
-				timer.cancel();
-				view.showVictoryMsg();
-			}  
-		}
-		else if (rightClicked && isRightClick) { 
-			model.getCells()[col][row].setRightClicked(false);
-			model.incrementFlags(-1);
-			view.setDefaultBackground(col, row);
-			view.setCounter(model.getMines() - model.getFlags());
-		}
-		else if (leftClicked && isDoubleClick && numFlagNeighbors == val) {
-			if (correctFlags(col, row)) {
-				zeroClicked(col, row);
-				if (model.hasWon()) {
-					timer.cancel();
-					view.showVictoryMsg();
-				}
+		if (applied.getIsNewGame()) {
+			view.reset();
+		}
+		Board board = mirror.getBoard();
+		for (int i = 0; i < applied.size(); i++) {
+			int index = applied.getIndex(i);
+			mirror.setState(index, applied.getState(i));
+			view.showValue(board.column(index), board.row(index));
+		}
+		if (applied.getIsCounterSet()) {
+			view.setCounter(applied.getCounter());
+		}
+		if (applied.getIsVictory()) {
+			view.showVictoryMsg();
+		}
+		if (applied.getIsClockSet()) {
+			shownClock = applied;
+			if (applied.getIsClockRunning()) {
+				timer.start();
 			}
 			else {
-				mineClicked();
+				timer.stop();
 			}
+			view.setTimer(applied.getSecondsAt(System.nanoTime()));
+		}
+		view.endAction();
+	}
+	
+	/**
+	 * Returns the dialog to choose save files.
+	 */
+	private JFileChooser getChooser() {
+		if (chooser == null) {
+			chooser = new JFileChooser();
+		}
+		return chooser;
+	}
+	
+	/**
+	 * Processes a click on a mine field cell and takes appropriate action. Runs on the game thread.
+	 * Input: the kind of click, and the column and row of the cell that was clicked
+	 */
+	private void fieldClicked(int click, int col, int row) {
+		
+		// Ignore clicks once the game is over
+		if (engine.isOver()) {
+			return;
+		}
+		
+		// Start the clock and the journal if this is the first click of the game
+		if (model.getIsNew()) {
+			clock.start();
+			openJournal();
+			model.setIsNew(false);
+		}
+		
+		// Translate the mouse click into a move
+		MoveResult result;
+		int kind;
+		if (click != Journal.FLAG) {
+			kind = click;
+			result = kind == Journal.CHORD ? engine.chord(col, row) : engine.reveal(col, row);
+		}
+		else {
+			result = engine.toggleFlag(col, row);
+			kind = result.getFlagChange() < 0 ? Journal.UNFLAG : Journal.FLAG;
+		}
+		recordMove(kind, col, row);
+		action = kind;
+		uncovered = result.getRevealedAll() ? 0 : result.getRevealed().size();
+		
+		// Record what the move changed, to be shown
+		Board board = model.getBoard();
+		if (result.getRevealedAll()) {
+			delta.setField(model, false);
+		}
+		else {
+			delta.addCells(model, result.getRevealed());
+		}
+		if (result.getFlagChange() != 0) {
+			delta.addCell(board, board.index(col, row));
+		}
+		delta.setCounter(model.getMines() - model.getFlags());
+		if (result.getStatus() == GameStatus.WON) {
+			clock.stop();
+			closeJournal();
+			delta.setVictory(true);
+		}
+		else if (result.getStatus() == GameStatus.LOST) {
+			clock.stop();
+			closeJournal();
+		}
+	}
+	
+	/**
+	 * Starts a journal of the game, if journals are kept. The game is played on without one if the file
+	 * can't be created.
+	 */
+	private void openJournal() {
+		closeJournal();
+		if (journalDirectory == null) {
+			return;
+		}
+		Path path = journalDirectory.resolve("game-" + System.currentTimeMillis() + ".msj");
+		try {
+			journal = new Journal(path, model, clock.getElapsedNanos());
+		}
+		catch (IOException e) {
+			System.err.println("Couldn't start the journal " + path + ": " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Records a move in the journal, if there is one. The journal is dropped if it fails.
+	 * Input: the kind of move, and the column and row of its cell
+	 */
+	private void recordMove(int kind, int col, int row) {
+		if (journal == null) {
+			return;
+		}
+		try {
+			journal.record(kind, col, row, model, clock.getElapsedNanos());
+		}
+		catch (IOException e) {
+			System.err.println("Couldn't record the move: " + e.getMessage());
+			closeJournal();
 		}
 	}
 	
+	/**
+	 * Writes out the rest of the journal and closes it, if there is one.
+	 */
+	private void closeJournal() {
+		if (journal == null) {
+			return;
+		}
+		try {
+			journal.close();
+		}
+		catch (IOException e) {
+			System.err.println("Couldn't finish the journal: " + e.getMessage());
+		}
+		journal = null;
+	}
+	
+	/**
+	 * Pauses the clock, for example while the window is minimized.
+	 */
+	public void pause() {
+		loop.submit(() -> {
+			if (clock.getIsRunning()) {
+				clock.pause();
+			}
+		});
+	}
+	
+	/**
+	 * Resumes the clock if it was paused.
+	 */
+	public void resume() {
+		loop.submit(() -> {
+			if (clock.getIsPaused()) {
+				clock.resume();
+			}
+		});
+	}
+	
+	/**
+	 * Makes new games start on models from a supply rather than on the reset model.
+	 * Input: the supply, or null to reset the model
+	 */
+	public void setSupply(BoardSupply supply) {
+		loop.submit(() -> {
+			this.supply = supply;
+			this.supplied = supply != null;
+		});
+	}
+	
+	/**
+	 * Keeps a journal of every game in a directory, or stops keeping them.
+	 * Input: the directory, or null for no journals
+	 */
+	public void setJournalDirectory(Path journalDirectory) {
+		loop.submit(() -> this.journalDirectory = journalDirectory);
+	}
+	
+	/**
+	 * Stops the game thread. The controller must not be used afterwards.
+	 */
+	public void close() {
+		loop.stop();
+	}
+	
 	/**
 	 * Determines if the mouse click was a left click.
 	 * Input: mouse event
@@ -180,107 +536,10 @@ public class Controller implements MouseListener {
 		}
 	}
 	
-	/**
-	 * Displays the values of all the neighboring buttons that aren't flagged. If one of the neighboring 
-	 * buttons has a value of zero, the method calls itself on that button.
-	 * Input: the column and row of the button to investigate
-	 */
-	private void zeroClicked(int col, int row) {
-		
-		// Get all the neighbors
-		ArrayList<Cell> neighbors = model.getNeighbors(col, row);
-		
-		// Check each neighbor that hasn't been clicked
-    	for (Cell neighbor : neighbors) {
-    		if (!neighbor.getLeftClicked() && !neighbor.getRightClicked()) {
-    			int ncol = neighbor.getColumn();
-    			int nrow = neighbor.getRow();
-    			int nval = neighbor.getValue();
-    			neighbor.setLeftClicked(true);
-    			view.showValue(ncol, nrow, nval);
-    			if (nval == 0) {
-    				zeroClicked(ncol, nrow);
-    			}
-    		}
-    	}
-	}
-	
-	/**
-	 * Stops the timer and shows all the buttons.
-	 */
-	private void mineClicked() {
-		
-		// stop the timer
-		timer.cancel();
-		
-		// show all the buttons
-		for (int i = 0; i < model.getLength(); i++) {
-			for (int j = 0; j < model.getLength(); j++) {
-				Cell cell = model.getCells()[j][i];
-				if (!cell.getIsMine()) {
-					view.showValue(cell.getColumn(), cell.getRow(), cell.getValue());
-				}
-				else if (cell.getIsMine()) {
-					view.showMine(cell.getColumn(), cell.getRow());
-				}
-		    	cell.setLeftClicked(true);
-			}
-		}
-	}
-	
-	/**
-	 * Determines if the flags on the neighboring cells are placed correctly.
-	 * Precondition: the number of flags on the neighboring cells is equal to the
-	 * number of neighboring cells that are mines.
-	 * Input: the column and row of the cell to investigate
-	 */
-	private boolean correctFlags(int col, int row) {
-		
-		// Get all the neighbors
-		ArrayList<Cell> neighbors = model.getNeighbors(col, row);
-				
-		// Check each neighbor that hasn't been clicked
-		for (Cell neighbor : neighbors) {
-		    if (!neighbor.getLeftClicked() && !neighbor.getRightClicked()) {
-		    	int ncol = neighbor.getColumn();
-		    	int nrow = neighbor.getRow();
-		    	if (model.getCells()[ncol][nrow].getIsMine()) {
-		    		return false;
-		    	}
-		    }
-		}
-		return true;
-	}
-	
 	// Methods from interface MouseListener that must be implemented
 	public void mousePressed(MouseEvent e) {};
 	public void mouseReleased(MouseEvent e) {};
 	public void mouseEntered(MouseEvent e) {};
 	public void mouseExited(MouseEvent e) {};
 	
-		
-	/**
-	 * An instance represents the time (in seconds) since the first click.
-	 */
-	private class Time extends TimerTask {
-		
-		private int second; // How long the game has lasted (in seconds) (>= 0)
-			
-		/**
-		 * Constructor: initializes the time to zero.
-		 */
-		public Time() {
-			second = 0;
-		}
-			
-		/**
-		 * Displays and increments the time.
-		 */
-		public void run() {
-			view.setTimer(second);
-			second++;
-		}
-	}
-	        
 }
-
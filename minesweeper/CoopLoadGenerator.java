@@ -0,0 +1,346 @@
+package minesweeper;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This loads a CoopServer with many simulated players, to measure how many commands it applies per second
+ * and how long its broadcasts take to reach every player.
+ *
+ * The players are shared out between threads, each serving its group of players, each on its own socket,
+ * through one selector. Between them the players of a group send commands at a steady total rate: mostly
+ * reveals of cells that look hidden, with some flags and chords. The cells are picked from a copy of the
+ * mine field that the first player of the group keeps up to date from the frames it receives; when a game
+ * is over, the first player of the first group starts the next. Every player reads every frame, and the
+ * time from a frame being made on the server to its arrival at each player, the fan-out latency, is recorded
+ * in a histogram. The time stamps are from System.nanoTime, so the server must run on the same machine.
+ *
+ * @author Benjamin Revard
+ */
+public class CoopLoadGenerator {
+
+	private int players; // The number of simulated players (> 0)
+	private double rate; // The number of commands each player sends per second (> 0)
+	private int threads; // The number of threads the players are shared out between (> 0)
+	private long seed; // The seed of the moves
+	private Histogram fanOut; // The time from frames being made to reaching each player
+	private AtomicLong sent; // The number of commands sent (>= 0)
+	private AtomicLong skipped; // The number of commands not sent because a socket was full (>= 0)
+	private AtomicLong frames; // The number of frames received, by all the players together (>= 0)
+	private AtomicLong bytesReceived; // The number of bytes received, by all the players together (>= 0)
+	private double commandsPerSecond; // The rate the server applied commands at, as the first group heard it
+
+	/**
+	 * A group of players served by one thread.
+	 */
+	private class Group implements Runnable {
+
+		private boolean first; // Whether this is the first group, which starts new games
+		private SocketChannel[] channels; // The socket of each player
+		private ByteBuffer[] inputs; // The bytes each player has received and not yet read as frames
+		private ByteBuffer command; // The command being sent, reused between commands
+		private SplittableRandom random; // The generator of the moves
+		private byte[] cells; // The first player's copy of the mine field, one byte per cell numbered row by row
+		private int width; // The number of columns of the mine field (>= 0)
+		private GameStatus status; // The state of the game, as the first player last heard it
+		private boolean resetSent; // Whether the first player has asked for a new game since the last started
+		private long firstCommands; // The number of commands the server had applied at the first frame
+		private long lastCommands; // The number of commands the server had applied at the last frame
+		private long firstFrameAt; // The value of System.nanoTime when the first frame arrived
+		private long lastFrameAt; // The value of System.nanoTime when the last frame arrived
+		private InetSocketAddress address; // The address of the server
+		private long end; // The value of System.nanoTime to stop at
+		private IOException failure; // What went wrong, or null
+
+		private Group(boolean first, int size, SplittableRandom random, InetSocketAddress address, long end) {
+			this.first = first;
+			this.random = random;
+			this.address = address;
+			this.end = end;
+			channels = new SocketChannel[size];
+			inputs = new ByteBuffer[size];
+			command = ByteBuffer.allocate(CoopProtocol.COMMAND_SIZE);
+			status = GameStatus.CONTINUE;
+		}
+
+		/**
+		 * Connects every player of the group, plays until the end, then hangs up.
+		 */
+		public void run() {
+			try (Selector selector = Selector.open()) {
+				try {
+					play(selector);
+				}
+				finally {
+					for (SocketChannel channel : channels) {
+						if (channel != null) {
+							channel.close();
+						}
+					}
+				}
+			}
+			catch (IOException e) {
+				failure = e;
+			}
+		}
+
+		/**
+		 * Connects every player of the group, and plays until the end.
+		 * Input: the selector of the group
+		 */
+		private void play(Selector selector) throws IOException {
+			for (int p = 0; p < channels.length; p++) {
+				channels[p] = SocketChannel.open(address);
+				channels[p].socket().setTcpNoDelay(true);
+				channels[p].configureBlocking(false);
+				channels[p].register(selector, SelectionKey.OP_READ, p);
+				inputs[p] = ByteBuffer.allocate(1 << 16);
+			}
+			long interval = (long) (1e9 / (rate * channels.length));
+			long next = System.nanoTime();
+			int player = 0;
+			while (System.nanoTime() < end) {
+				selector.select(1);
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					receive((Integer) key.attachment());
+				}
+
+				// Send the commands that are due, taking turns
+				long now = System.nanoTime();
+				if (cells == null) {
+					next = now;
+				}
+				while (next <= now && cells != null) {
+					send(player);
+					player = (player + 1) % channels.length;
+					next += interval;
+				}
+			}
+		}
+
+		/**
+		 * Reads what a player has received, and every whole frame in it.
+		 * Input: the number of the player
+		 */
+		private void receive(int player) throws IOException {
+			ByteBuffer input = inputs[player];
+			int read = channels[player].read(input);
+			if (read < 0) {
+				throw new IOException("The server hung up");
+			}
+			bytesReceived.addAndGet(read);
+			input.flip();
+			while (input.remaining() >= 4) {
+				int length = input.getInt(input.position());
+				if (input.remaining() < 4 + length) {
+					break;
+				}
+				input.getInt();
+				int end = input.position() + length;
+				readFrame(player, input);
+				input.position(end);
+			}
+			if (input.position() == 0 && input.remaining() == input.capacity()) {
+
+				// Make room for a frame larger than the buffer
+				ByteBuffer grown = ByteBuffer.allocate(input.capacity() * 2);
+				grown.put(input);
+				inputs[player] = grown;
+			}
+			else {
+				input.compact();
+			}
+		}
+
+		/**
+		 * Reads a frame, recording how long it took to arrive. The first player applies it to its copy
+		 * of the mine field too.
+		 * Input: the number of the player, and the buffer, positioned after the length of the frame
+		 */
+		private void readFrame(int player, ByteBuffer input) {
+			int kind = input.get();
+			long madeAt = input.getLong();
+			long now = System.nanoTime();
+			fanOut.record(now - madeAt);
+			frames.incrementAndGet();
+			if (player != 0) {
+				return;
+			}
+			long commands = Varint.getVarLong(input);
+			if (firstFrameAt == 0) {
+				firstFrameAt = now;
+				firstCommands = commands;
+			}
+			lastFrameAt = now;
+			lastCommands = commands;
+			status = GameStatus.values()[input.get()];
+			if (kind == CoopProtocol.GAME) {
+				width = (int) Varint.getVarLong(input);
+				int height = (int) Varint.getVarLong(input);
+				Varint.getVarLong(input);
+				cells = new byte[width * height];
+				resetSent = false;
+			}
+			if (kind == CoopProtocol.LOSS) {
+				CoopProtocol.applyMines(input, cells, width);
+			}
+			else {
+				CoopProtocol.applyCells(input, cells);
+			}
+		}
+
+		/**
+		 * Sends the next command of a player, unless its socket is full. Once the game is over, the first
+		 * player of the first group asks for a new one instead.
+		 * Input: the number of the player
+		 */
+		private void send(int player) throws IOException {
+			command.clear();
+			if (status != GameStatus.CONTINUE) {
+				if (!first || player != 0 || resetSent) {
+					return;
+				}
+				CoopProtocol.putCommand(command, CoopProtocol.RESET, 0, 0);
+				resetSent = true;
+			}
+			else {
+				int cell = random.nextInt(cells.length);
+				int kind;
+				int roll = random.nextInt(20);
+				if (roll == 0) {
+					kind = CoopProtocol.FLAG;
+				}
+				else if (roll == 1) {
+					kind = CoopProtocol.CHORD;
+				}
+				else {
+					kind = CoopProtocol.REVEAL;
+
+					// Look for a hidden cell, a few times at most
+					for (int tries = 0; tries < 8 && cells[cell] != 0; tries++) {
+						cell = random.nextInt(cells.length);
+					}
+				}
+				CoopProtocol.putCommand(command, kind, cell % width, cell / width);
+			}
+			command.flip();
+			channels[player].write(command);
+			if (command.position() == 0) {
+				skipped.incrementAndGet();
+				return;
+			}
+
+			// A command cut short must be finished, or the rest of the stream would be misread
+			while (command.hasRemaining()) {
+				channels[player].write(command);
+			}
+			sent.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Constructor: makes a load generator.
+	 * Input: the number of players, the number of commands each sends per second, the number of threads to
+	 * share the players out between, and the seed of the moves
+	 */
+	public CoopLoadGenerator(int players, double rate, int threads, long seed) {
+		this.players = players;
+		this.rate = rate;
+		this.threads = Math.min(threads, players);
+		this.seed = seed;
+		fanOut = new Histogram("fan-out", true);
+		sent = new AtomicLong();
+		skipped = new AtomicLong();
+		frames = new AtomicLong();
+		bytesReceived = new AtomicLong();
+	}
+
+	/**
+	 * Connects every player to a server on the loopback address, plays for a while, then hangs up.
+	 * Input: the port of the server, and how long to play, in seconds
+	 */
+	public void run(int port, double seconds) throws IOException, InterruptedException {
+		InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+		long end = System.nanoTime() + (long) (seconds * 1e9);
+		SplittableRandom random = new SplittableRandom(seed);
+		Group[] groups = new Group[threads];
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			int size = players / threads + (i < players % threads ? 1 : 0);
+			groups[i] = new Group(i == 0, size, random.split(), address, end);
+			workers[i] = new Thread(groups[i], "players-" + i);
+			workers[i].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		for (Group group : groups) {
+			if (group.failure != null) {
+				throw group.failure;
+			}
+		}
+		Group first = groups[0];
+		commandsPerSecond = first.lastFrameAt == first.firstFrameAt ? 0
+				: (first.lastCommands - first.firstCommands) * 1e9 / (first.lastFrameAt - first.firstFrameAt);
+	}
+
+	// Getters
+	public double getCommandsPerSecond() {
+		return commandsPerSecond;
+	}
+
+	public Histogram getFanOut() {
+		return fanOut;
+	}
+
+	public long getSent() {
+		return sent.get();
+	}
+
+	public long getSkipped() {
+		return skipped.get();
+	}
+
+	public long getFrames() {
+		return frames.get();
+	}
+
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	/**
+	 * Loads a co-op server on this machine, and prints what it measured.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length > 5) {
+			System.err.println("Usage: java minesweeper.CoopLoadGenerator [players] [rate] [seconds] [threads] [port]");
+			System.exit(2);
+		}
+		int players = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		double rate = args.length > 1 ? Double.parseDouble(args[1]) : 50;
+		double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		int port = args.length > 4 ? Integer.parseInt(args[4]) : CoopServer.DEFAULT_PORT;
+
+		CoopLoadGenerator generator = new CoopLoadGenerator(players, rate, threads, System.nanoTime());
+		generator.run(port, seconds);
+		System.out.printf("%d players sent %d commands (%d skipped), the server applied %.0f commands/s%n",
+				players, generator.getSent(), generator.getSkipped(), generator.getCommandsPerSecond());
+		System.out.printf("%d frames received, %.1f MB%n", generator.getFrames(),
+				generator.getBytesReceived() / 1e6);
+		System.out.println(generator.getFanOut());
+	}
+
+}
@@ -0,0 +1,271 @@
+package minesweeper;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This reads and writes the messages of co-op games, between a CoopServer and its players.
+ *
+ * A player sends commands of COMMAND_SIZE bytes: a kind byte (REVEAL, CHORD, FLAG or RESET), then the column
+ * and the row of the cell as ints. FLAG places a flag or removes it, as a right click does, and RESET starts
+ * a new game once the last one is over.
+ *
+ * The server sends frames, each an int giving the number of bytes that follow, then:
+ * - a kind byte: GAME when a game starts, or when the player joins, DELTA for the changes since the last
+ *   frame, and LOSS when a mine is revealed, which reveals every cell. The player clears its copy of the mine
+ *   field before applying a GAME frame.
+ * - the value of System.nanoTime when the frame was made, as a long, so a player on the same machine can
+ *   tell how long the frame took to reach it.
+ * - the number of commands the server has applied, the state of the game (a GameStatus ordinal), and for
+ *   GAME frames, the number of columns and the number of rows of the mine field and the number of mines.
+ * - the runs of cells revealed: their number, then for each the cells skipped since the end of the last run
+ *   and the length of the run, then the values of its cells two to a byte, the first in the low half, with 9
+ *   for a mine. Cells are numbered row by row from the top left, so a cascade makes a few long runs.
+ *   A LOSS frame has the mines instead: their number, then for each the cells skipped since the last. Every
+ *   cell is revealed, and the player works out the values from the mines, so the whole mine field costs about
+ *   a byte per mine rather than half a byte per cell.
+ * - the flags that changed: their number, then for each the cells skipped since the last, shifted left once,
+ *   with the low bit set if the cell is flagged now.
+ * Apart from the length, the time stamp and the kind and status bytes, integers are written as varints
+ * (see Varint). A GAME frame lists the whole state of the game, so a player joining late catches up at once.
+ *
+ * @author Benjamin Revard
+ */
+final class CoopProtocol {
+
+	static final int REVEAL = 1; // The command to reveal a cell
+	static final int CHORD = 2; // The command to reveal the neighbors of a revealed cell
+	static final int FLAG = 3; // The command to place or remove a flag
+	static final int RESET = 4; // The command to start a new game once the last is over
+	static final int COMMAND_SIZE = 9; // The number of bytes of a command
+
+	static final int GAME = 1; // The kind of frame that starts a game
+	static final int DELTA = 2; // The kind of frame that carries changes
+	static final int LOSS = 3; // The kind of frame that reveals every cell, the game being lost
+	static final int MINE_VALUE = 9; // The value sent for a mine
+
+	private CoopProtocol() {
+	}
+
+	/**
+	 * Writes a command.
+	 * Input: the buffer, the kind of command, and the column and row of its cell
+	 */
+	static void putCommand(ByteBuffer buffer, int kind, int col, int row) {
+		buffer.put((byte) kind);
+		buffer.putInt(col);
+		buffer.putInt(row);
+	}
+
+	/**
+	 * Returns an upper bound on the bytes of a frame.
+	 * Input: the number of cells revealed and the number of flags that changed
+	 */
+	static int getMaxFrameSize(int revealed, int flags) {
+		return 64 + 11 * revealed + 6 * flags;
+	}
+
+	/**
+	 * Returns an upper bound on the bytes of a LOSS frame.
+	 * Input: the number of mines and the number of flags that changed
+	 */
+	static int getMaxLossSize(int mines, int flags) {
+		return 64 + 5 * mines + 6 * flags;
+	}
+
+	/**
+	 * Writes the start of a frame, leaving room for its length, which endFrame fills in.
+	 * Input: the buffer, the kind of frame, the number of commands applied and the state of the game
+	 */
+	static void startFrame(ByteBuffer buffer, int kind, long commands, GameStatus status) {
+		buffer.putInt(0);
+		buffer.put((byte) kind);
+		buffer.putLong(System.nanoTime());
+		Varint.putVarLong(buffer, commands);
+		buffer.put((byte) status.ordinal());
+	}
+
+	/**
+	 * Writes the size of a mine field, which follows the start of a GAME frame.
+	 * Input: the buffer, the number of columns and the number of rows, and the number of mines
+	 */
+	static void putSize(ByteBuffer buffer, int width, int height, int mines) {
+		Varint.putVarLong(buffer, width);
+		Varint.putVarLong(buffer, height);
+		Varint.putVarLong(buffer, mines);
+	}
+
+	/**
+	 * Writes the runs of cells revealed.
+	 * Input: the buffer, the revealed cells numbered row by row, sorted (repeats are skipped), their number,
+	 * and the board the values are read from
+	 */
+	static void putRuns(ByteBuffer buffer, int[] cells, int size, Board board) {
+		int width = board.getWidth();
+
+		// Count the runs first, since their number comes before them
+		int runs = 0;
+		for (int i = 0; i < size; i++) {
+			if (i == 0 || cells[i] > cells[i - 1] + 1) {
+				runs++;
+			}
+		}
+		Varint.putVarLong(buffer, runs);
+		int end = 0;
+		int i = 0;
+		while (i < size) {
+			int start = cells[i];
+			int j = i + 1;
+			while (j < size && cells[j] <= cells[j - 1] + 1) {
+				j++;
+			}
+			int length = cells[j - 1] - start + 1;
+			Varint.putVarLong(buffer, start - end);
+			Varint.putVarLong(buffer, length);
+			for (int k = 0; k < length; k += 2) {
+				int low = valueOf(board, start + k, width);
+				int high = k + 1 < length ? valueOf(board, start + k + 1, width) : 0;
+				buffer.put((byte) (high << 4 | low));
+			}
+			end = start + length;
+			i = j;
+		}
+	}
+
+	/**
+	 * Returns the value sent for a cell.
+	 * Input: the board, the number of the cell, and the number of columns
+	 */
+	private static int valueOf(Board board, int cell, int width) {
+		int index = board.index(cell % width, cell / width);
+		return board.isMine(index) ? MINE_VALUE : board.getValue(index);
+	}
+
+	/**
+	 * Writes the mines, for a LOSS frame.
+	 * Input: the buffer, and the board
+	 */
+	static void putMines(ByteBuffer buffer, Board board) {
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int count = 0;
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				if (board.isMine(board.index(col, row))) {
+					count++;
+				}
+			}
+		}
+		Varint.putVarLong(buffer, count);
+		int last = 0;
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				if (board.isMine(board.index(col, row))) {
+					Varint.putVarLong(buffer, row * width + col - last);
+					last = row * width + col;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the flags that changed, as they are now.
+	 * Input: the buffer, the cells whose flag changed numbered row by row, sorted (repeats are skipped), their
+	 * number, and the board the flags are read from
+	 */
+	static void putFlags(ByteBuffer buffer, int[] cells, int size, Board board) {
+		int width = board.getWidth();
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (i == 0 || cells[i] != cells[i - 1]) {
+				count++;
+			}
+		}
+		Varint.putVarLong(buffer, count);
+		int last = 0;
+		for (int i = 0; i < size; i++) {
+			if (i > 0 && cells[i] == cells[i - 1]) {
+				continue;
+			}
+			boolean flagged = board.isFlagged(board.index(cells[i] % width, cells[i] / width));
+			Varint.putVarLong(buffer, (long) (cells[i] - last) << 1 | (flagged ? 1 : 0));
+			last = cells[i];
+		}
+	}
+
+	/**
+	 * Fills in the length of a frame written since startFrame.
+	 * Input: the buffer, and the position of the start of the frame
+	 */
+	static void endFrame(ByteBuffer buffer, int start) {
+		buffer.putInt(start, buffer.position() - start - 4);
+	}
+
+	/**
+	 * Applies the runs and flags of a frame to a player's copy of the mine field, one byte per cell
+	 * numbered row by row, holding the REVEALED and FLAGGED bits of Board and the value of revealed cells.
+	 * Input: the buffer, positioned at the runs, and the copy
+	 */
+	static void applyCells(ByteBuffer buffer, byte[] cells) {
+		long runs = Varint.getVarLong(buffer);
+		int cell = 0;
+		for (long r = 0; r < runs; r++) {
+			cell += (int) Varint.getVarLong(buffer);
+			int length = (int) Varint.getVarLong(buffer);
+			for (int k = 0; k < length; k += 2) {
+				int values = buffer.get();
+				cells[cell + k] = (byte) (Board.REVEALED | values & Board.VALUE);
+				if (k + 1 < length) {
+					cells[cell + k + 1] = (byte) (Board.REVEALED | values >> 4 & Board.VALUE);
+				}
+			}
+			cell += length;
+		}
+		applyFlags(buffer, cells);
+	}
+
+	/**
+	 * Applies the mines and flags of a LOSS frame to a player's copy of the mine field, as applyCells does:
+	 * every cell is revealed, keeping its flag, and the value of each is the number of mines around it.
+	 * Input: the buffer, positioned at the mines, the copy, and the number of columns of the mine field
+	 */
+	static void applyMines(ByteBuffer buffer, byte[] cells, int width) {
+		int height = cells.length / width;
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = (byte) (cells[i] & Board.FLAGGED | Board.REVEALED);
+		}
+
+		// A cell counted before it turns out to be a mine is overwritten, and mines are never counted
+		long mines = Varint.getVarLong(buffer);
+		int cell = 0;
+		for (long m = 0; m < mines; m++) {
+			cell += (int) Varint.getVarLong(buffer);
+			cells[cell] = (byte) (cells[cell] & ~Board.VALUE | MINE_VALUE);
+			int col = cell % width;
+			int row = cell / width;
+			for (int r = Math.max(0, row - 1); r <= Math.min(height - 1, row + 1); r++) {
+				for (int c = Math.max(0, col - 1); c <= Math.min(width - 1, col + 1); c++) {
+					int neighbor = r * width + c;
+					if ((cells[neighbor] & Board.VALUE) != MINE_VALUE) {
+						cells[neighbor]++;
+					}
+				}
+			}
+		}
+		applyFlags(buffer, cells);
+	}
+
+	/**
+	 * Applies the flags that changed to a player's copy of the mine field.
+	 * Input: the buffer, positioned at the flags, and the copy
+	 */
+	private static void applyFlags(ByteBuffer buffer, byte[] cells) {
+		long flags = Varint.getVarLong(buffer);
+		int cell = 0;
+		for (long f = 0; f < flags; f++) {
+			long change = Varint.getVarLong(buffer);
+			cell += (int) (change >>> 1);
+			cells[cell] = (byte) ((change & 1) != 0 ? cells[cell] | Board.FLAGGED : cells[cell] & ~Board.FLAGGED);
+		}
+	}
+
+}
@@ -0,0 +1,445 @@
+package minesweeper;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A server for co-op games, in which any number of players clear one mine field together over local sockets.
+ *
+ * The server owns the model, and one thread does everything: it waits on a selector for connections, commands
+ * and room to write, applies each command to the model through a GameEngine as soon as it is read, in the
+ * order the commands arrive, and when it has handled everything the selector reported, broadcasts what the
+ * commands changed to every player in one DELTA frame, or LOSS frame if a mine was revealed (see
+ * CoopProtocol). So the model needs no locks, however
+ * many players there are, and however many commands arrive between two broadcasts, they cost one frame.
+ * The frame is encoded once and the same bytes are queued for every player; a player that has fallen more
+ * than MAX_BACKLOG bytes behind is dropped rather than holding everyone else up.
+ *
+ * A new player is sent a GAME frame holding the whole state of the game. When a game is over, any player can
+ * start the next one, which is sent to everyone as a GAME frame.
+ *
+ * @author Benjamin Revard
+ */
+public class CoopServer {
+
+	public static final int DEFAULT_PORT = 7654; // The port the server listens on unless another is asked for
+	public static final String DEFAULT_SIZE = "1000x1000/100000"; // The mine field served unless another is asked for
+	public static final int MAX_BACKLOG = 16 << 20; // The most bytes that may wait to be sent to a player
+
+	private Model model; // The model of the game being played
+	private GameEngine engine; // The rules of the game, applied to the model
+	private Selector selector; // Tells the server which sockets are ready
+	private ServerSocketChannel server; // The socket players connect to
+	private List<Player> players; // The players connected
+	private int[] revealed; // The cells revealed since the last broadcast, numbered row by row
+	private int revealedSize; // The number of cells revealed since the last broadcast (>= 0)
+	private int[] flagged; // The cells whose flag changed since the last broadcast, numbered row by row
+	private int flaggedSize; // The number of flag changes since the last broadcast (>= 0)
+	private boolean revealedAll; // Whether every cell was revealed since the last broadcast
+	private boolean newGame; // Whether a game started since the last broadcast
+	private ByteBuffer state; // The frames holding the whole state of the game, or null if it changed since
+	private long commands; // The number of commands applied (>= 0)
+	private long frames; // The number of frames broadcast (>= 0)
+	private long bytesSent; // The number of bytes written to players (>= 0)
+	private volatile boolean stopped; // Whether the server has been asked to stop
+
+	/**
+	 * A player connected to the server, with what it has sent that hasn't been read as a command yet,
+	 * and the frames waiting to be sent to it.
+	 */
+	private static class Player {
+
+		private SocketChannel channel; // The socket of the player
+		private ByteBuffer input; // The bytes received and not yet applied, ready to be written to
+		private ArrayDeque<ByteBuffer> output; // The frames waiting to be sent, the first maybe partly sent
+		private long backlog; // The number of bytes waiting to be sent (>= 0)
+
+		private Player(SocketChannel channel) {
+			this.channel = channel;
+			input = ByteBuffer.allocate(64 * CoopProtocol.COMMAND_SIZE);
+			output = new ArrayDeque<ByteBuffer>();
+		}
+	}
+
+	/**
+	 * Constructor: makes a server of a game, listening on the loopback address. It doesn't answer until run.
+	 * Input: the model of the game, which belongs to the server from now on, and the port, or 0 for any
+	 */
+	public CoopServer(Model model, int port) throws IOException {
+		this.model = model;
+		engine = new GameEngine(model);
+		players = new ArrayList<Player>();
+		revealed = new int[1024];
+		flagged = new int[64];
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	/**
+	 * Serves players until stopped, then closes every socket.
+	 */
+	public void run() throws IOException {
+		try {
+			while (!stopped) {
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+					}
+					else {
+						Player player = (Player) key.attachment();
+						if (key.isReadable()) {
+							read(player);
+						}
+						if (key.isValid() && key.isWritable()) {
+							write(player);
+						}
+					}
+				}
+				broadcast();
+			}
+		}
+		finally {
+			for (Player player : players) {
+				player.channel.close();
+			}
+			server.close();
+			selector.close();
+		}
+	}
+
+	/**
+	 * Asks the server to stop, from any thread.
+	 */
+	public void stop() {
+		stopped = true;
+		selector.wakeup();
+	}
+
+	/**
+	 * Accepts a waiting player, and sends it the state of the game. The changes waiting to be broadcast are
+	 * sent to the others first, since the state sent to the new player holds them already.
+	 */
+	private void accept() throws IOException {
+		SocketChannel channel = server.accept();
+		if (channel == null) {
+			return;
+		}
+		broadcast();
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		Player player = new Player(channel);
+		channel.register(selector, SelectionKey.OP_READ, player);
+		players.add(player);
+		if (state == null) {
+			state = encodeGame();
+		}
+		send(player, state.duplicate());
+	}
+
+	/**
+	 * Reads what a player sent, and applies every whole command in it. A player that hangs up or sends
+	 * anything but commands is dropped.
+	 * Input: the player
+	 */
+	private void read(Player player) {
+		try {
+			if (player.channel.read(player.input) < 0) {
+				drop(player);
+				return;
+			}
+		}
+		catch (IOException e) {
+			drop(player);
+			return;
+		}
+		ByteBuffer input = player.input;
+		input.flip();
+		while (input.remaining() >= CoopProtocol.COMMAND_SIZE) {
+			if (!apply(input.get(), input.getInt(), input.getInt())) {
+				drop(player);
+				return;
+			}
+		}
+		input.compact();
+	}
+
+	/**
+	 * Applies a command to the game, and records what it changed for the next broadcast. Moves on cells
+	 * outside the mine field are ignored, as are moves once the game is over, and starting a game before
+	 * it is.
+	 * Returns whether the command was understood.
+	 * Input: the kind of command, and the column and row of its cell
+	 */
+	private boolean apply(int kind, int col, int row) {
+		commands++;
+		if (kind == CoopProtocol.RESET) {
+			if (engine.isOver()) {
+				model.reset();
+				newGame = true;
+				revealedAll = false;
+				revealedSize = 0;
+				flaggedSize = 0;
+			}
+			return true;
+		}
+		if (kind < CoopProtocol.REVEAL || kind > CoopProtocol.FLAG) {
+			return false;
+		}
+		if (col < 0 || col >= model.getWidth() || row < 0 || row >= model.getHeight()) {
+			return true;
+		}
+		MoveResult result;
+		if (kind == CoopProtocol.FLAG) {
+			result = engine.toggleFlag(col, row);
+		}
+		else {
+			result = kind == CoopProtocol.CHORD ? engine.chord(col, row) : engine.reveal(col, row);
+		}
+		if (result.getRevealedAll()) {
+			revealedAll = true;
+		}
+		else if (!revealedAll) {
+			RevealBatch batch = result.getRevealed();
+			if (revealedSize + batch.size() > revealed.length) {
+				revealed = Arrays.copyOf(revealed, Math.max(revealed.length * 2, revealedSize + batch.size()));
+			}
+			for (int i = 0; i < batch.size(); i++) {
+				revealed[revealedSize++] = batch.getRow(i) * model.getWidth() + batch.getColumn(i);
+			}
+		}
+		if (result.getFlagChange() != 0) {
+			if (flaggedSize == flagged.length) {
+				flagged = Arrays.copyOf(flagged, flaggedSize * 2);
+			}
+			flagged[flaggedSize++] = row * model.getWidth() + col;
+		}
+		return true;
+	}
+
+	/**
+	 * Sends every player what changed since the last broadcast, if anything did.
+	 */
+	private void broadcast() {
+		ByteBuffer frame;
+		if (newGame) {
+			frame = encodeGame();
+		}
+		else if (revealedAll || revealedSize > 0 || flaggedSize > 0) {
+			Arrays.sort(revealed, 0, revealedSize);
+			Arrays.sort(flagged, 0, flaggedSize);
+			frame = encode(revealedAll ? CoopProtocol.LOSS : CoopProtocol.DELTA);
+		}
+		else {
+			return;
+		}
+		newGame = false;
+		revealedAll = false;
+		revealedSize = 0;
+		flaggedSize = 0;
+		state = null;
+		frames++;
+		for (int i = players.size() - 1; i >= 0; i--) {
+			send(players.get(i), frame.duplicate());
+		}
+	}
+
+	/**
+	 * Returns a GAME frame holding the whole state of the game, ready to be read. A lost game is sent as an
+	 * empty GAME frame followed by a LOSS frame, which takes far fewer bytes than every cell revealed.
+	 */
+	private ByteBuffer encodeGame() {
+		boolean lost = engine.getStatus() == GameStatus.LOST;
+		revealedSize = 0;
+		if (!lost) {
+			listRevealed();
+		}
+		Board board = model.getBoard();
+		flaggedSize = 0;
+		for (int row = 0; row < model.getHeight(); row++) {
+			for (int col = 0; col < model.getWidth(); col++) {
+				if (board.isFlagged(board.index(col, row))) {
+					if (flaggedSize == flagged.length) {
+						flagged = Arrays.copyOf(flagged, flaggedSize * 2);
+					}
+					flagged[flaggedSize++] = row * model.getWidth() + col;
+				}
+			}
+		}
+		ByteBuffer frame;
+		if (lost) {
+			int flags = flaggedSize;
+			flaggedSize = 0;
+			ByteBuffer game = encode(CoopProtocol.GAME);
+			flaggedSize = flags;
+			ByteBuffer loss = encode(CoopProtocol.LOSS);
+			frame = ByteBuffer.allocate(game.remaining() + loss.remaining());
+			frame.put(game).put(loss).flip();
+		}
+		else {
+			frame = encode(CoopProtocol.GAME);
+		}
+		revealedSize = 0;
+		flaggedSize = 0;
+		return frame;
+	}
+
+	/**
+	 * Lists every revealed cell as revealed since the last broadcast, in order.
+	 */
+	private void listRevealed() {
+		Board board = model.getBoard();
+		revealedSize = 0;
+		for (int row = 0; row < model.getHeight(); row++) {
+			for (int col = 0; col < model.getWidth(); col++) {
+				if (board.isRevealed(board.index(col, row))) {
+					if (revealedSize == revealed.length) {
+						revealed = Arrays.copyOf(revealed, revealedSize * 2);
+					}
+					revealed[revealedSize++] = row * model.getWidth() + col;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a frame of the cells listed as revealed and flagged, which must be sorted, ready to be read.
+	 * A LOSS frame has the mines in place of the cells revealed.
+	 * Input: the kind of frame
+	 */
+	private ByteBuffer encode(int kind) {
+		ByteBuffer frame = ByteBuffer.allocate(kind == CoopProtocol.LOSS
+				? CoopProtocol.getMaxLossSize(model.getMines(), flaggedSize)
+				: CoopProtocol.getMaxFrameSize(revealedSize, flaggedSize));
+		CoopProtocol.startFrame(frame, kind, commands, engine.getStatus());
+		if (kind == CoopProtocol.GAME) {
+			CoopProtocol.putSize(frame, model.getWidth(), model.getHeight(), model.getMines());
+		}
+		if (kind == CoopProtocol.LOSS) {
+			CoopProtocol.putMines(frame, model.getBoard());
+		}
+		else {
+			CoopProtocol.putRuns(frame, revealed, revealedSize, model.getBoard());
+		}
+		CoopProtocol.putFlags(frame, flagged, flaggedSize, model.getBoard());
+		CoopProtocol.endFrame(frame, 0);
+		frame.flip();
+		return frame;
+	}
+
+	/**
+	 * Queues a frame for a player and sends as much of what is queued as the socket takes. A player too far
+	 * behind is dropped.
+	 * Input: the player, and the frame
+	 */
+	private void send(Player player, ByteBuffer frame) {
+		if (player.backlog + frame.remaining() > MAX_BACKLOG) {
+			System.err.println("Dropping a player that is too far behind");
+			drop(player);
+			return;
+		}
+		player.output.add(frame);
+		player.backlog += frame.remaining();
+		if (player.output.size() == 1) {
+			write(player);
+		}
+	}
+
+	/**
+	 * Sends as much of what is queued for a player as the socket takes, and asks to be told when it takes
+	 * more if any is left.
+	 * Input: the player
+	 */
+	private void write(Player player) {
+		try {
+			while (!player.output.isEmpty()) {
+				ByteBuffer frame = player.output.peek();
+				int written = player.channel.write(frame);
+				bytesSent += written;
+				player.backlog -= written;
+				if (frame.hasRemaining()) {
+					break;
+				}
+				player.output.poll();
+			}
+			SelectionKey key = player.channel.keyFor(selector);
+			key.interestOps(player.output.isEmpty() ? SelectionKey.OP_READ
+					: SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		}
+		catch (IOException e) {
+			drop(player);
+		}
+	}
+
+	/**
+	 * Disconnects a player.
+	 * Input: the player
+	 */
+	private void drop(Player player) {
+		players.remove(player);
+		try {
+			player.channel.close();
+		}
+		catch (IOException e) {
+			System.err.println("Couldn't close the socket of a player: " + e.getMessage());
+		}
+	}
+
+	// Getters
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	public long getCommands() {
+		return commands;
+	}
+
+	public long getFrames() {
+		return frames;
+	}
+
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	/**
+	 * Serves a co-op game on a mine field of a preset or size, on a port of the loopback address.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length > 2) {
+			System.err.println("Usage: java minesweeper.CoopServer [preset] [port]");
+			System.exit(2);
+		}
+		Preset preset = Preset.find(Preset.getStandard(), args.length > 0 ? args[0] : DEFAULT_SIZE);
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+
+		Model model = new Model(preset.getWidth(), preset.getHeight(), preset.getMines(), new SplittableRandom(),
+				true);
+		CoopServer server = new CoopServer(model, port);
+		System.out.println("Serving a " + preset.getWidth() + "x" + preset.getHeight() + " mine field with "
+				+ preset.getMines() + " mines on port " + server.getPort());
+		server.run();
+	}
+
+}
@@ -0,0 +1,75 @@
+package minesweeper;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Hands render deltas from the game thread to the event dispatch thread. There is at most one delta waiting
+ * at a time: a delta published while another still waits is merged into it, and at most one task is queued
+ * on the event dispatch thread to apply it. The game thread never waits for the event dispatch thread, and
+ * the event dispatch thread never waits for the game thread; they only exchange a reference atomically.
+ *
+ * @author Benjamin Revard
+ */
+public class DeltaPublisher {
+
+	private AtomicReference<RenderDelta> waiting; // The delta waiting to be applied, or null
+	private AtomicBoolean scheduled; // Whether a task to apply the waiting delta is queued
+	private Consumer<RenderDelta> consumer; // What applies a delta, on the event dispatch thread
+	private Runnable drain; // The task that applies the waiting delta
+	private long published; // The number of deltas published (>= 0)
+	private long merged; // The number of deltas merged into one still waiting (>= 0)
+
+	/**
+	 * Constructor: makes a publisher with nothing waiting.
+	 * Input: what applies a delta, which is called on the event dispatch thread
+	 */
+	public DeltaPublisher(Consumer<RenderDelta> consumer) {
+		this.consumer = consumer;
+		waiting = new AtomicReference<RenderDelta>();
+		scheduled = new AtomicBoolean();
+		drain = this::drain;
+	}
+
+	/**
+	 * Hands a delta over to be applied, merging it into the one waiting if there is one. Called by the game
+	 * thread only.
+	 * Input: the delta, which the caller mustn't use afterwards
+	 */
+	public void publish(RenderDelta delta) {
+		published++;
+		RenderDelta earlier = waiting.getAndSet(null);
+		if (earlier != null) {
+			earlier.merge(delta);
+			delta = earlier;
+			merged++;
+		}
+		waiting.set(delta);
+		if (scheduled.compareAndSet(false, true)) {
+			SwingUtilities.invokeLater(drain);
+		}
+	}
+
+	/**
+	 * Applies the waiting delta, if there is one. Runs on the event dispatch thread.
+	 */
+	private void drain() {
+		scheduled.set(false);
+		RenderDelta delta = waiting.getAndSet(null);
+		if (delta != null) {
+			consumer.accept(delta);
+		}
+	}
+
+	// Getters, for the game thread
+	public long getPublished() {
+		return published;
+	}
+
+	public long getMerged() {
+		return merged;
+	}
+
+}
@@ -0,0 +1,112 @@
+package minesweeper;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * A picture of a bounded mine field at reduced resolution, for when it is zoomed out too far to show single
+ * cells. Each pixel stands for a square block of cells, and is the average color of those cells, so hidden,
+ * revealed and flagged regions still show as areas of their colors, in proportion, however small the blocks
+ * are on screen.
+ *
+ * The blocks are as small as they can be while keeping the picture under MAX_SIDE pixels a side, so a mine
+ * field of 5000 by 5000 cells takes 4 by 4 blocks, and a picture of about 6 MB. The picture is made once, and
+ * after that only the blocks of cells that change are worked out again, a row of cells at a time. Drawing it,
+ * scaled, costs the same whatever the size of the mine field.
+ *
+ * @author Benjamin Revard
+ */
+public class DensityMap {
+
+	public static final int MAX_SIDE = 1280; // The largest number of pixels along a side of the picture
+
+	private CellSource source; // The mine field the picture is of
+	private long[] spread; // The color of each packed cell, with red, green and blue 20 bits apart
+	private int block; // The number of cells along a side of a block (a power of two)
+	private int shift; // The log of the number of cells along a side of a block
+	private BufferedImage image; // The picture, one pixel per block
+	private int[] pixels; // The pixels of the picture, row by row
+	private byte[] row; // One row of cells, reused for every row read
+	private long[] sums; // The sums of the colors of a row of cells of each block, spread out
+	private long[] totals; // The sums of the red, green and blue of the cells of each block of a row of blocks
+
+	/**
+	 * Constructor: makes the picture of a mine field.
+	 * Input: the mine field, which must be bounded, and the color of each packed cell, as RGB
+	 */
+	public DensityMap(CellSource source, int[] palette) {
+		this.source = source;
+		spread = new long[palette.length];
+		for (int i = 0; i < palette.length; i++) {
+			spread[i] = (long) (palette[i] >> 16 & 0xFF) << 40 | (palette[i] >> 8 & 0xFF) << 20 | palette[i] & 0xFF;
+		}
+		shift = 0;
+		while (blocks(source.getWidth()) > MAX_SIDE || blocks(source.getHeight()) > MAX_SIDE) {
+			shift++;
+		}
+		block = 1 << shift;
+		int mapWidth = blocks(source.getWidth());
+		int mapHeight = blocks(source.getHeight());
+		image = new BufferedImage(mapWidth, mapHeight, BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		row = new byte[mapWidth * block];
+		sums = new long[mapWidth];
+		totals = new long[3 * mapWidth];
+		update(0, 0, source.getWidth() - 1, source.getHeight() - 1);
+	}
+
+	/**
+	 * Returns the number of blocks needed to cover a number of cells.
+	 * Input: the number of cells (> 0)
+	 */
+	private int blocks(int cells) {
+		return ((cells - 1) >> shift) + 1;
+	}
+
+	/**
+	 * Works out again the pixels of the blocks that hold any of an area of cells.
+	 * Input: the column and row of the top left cell of the area, and of the bottom right cell
+	 */
+	public void update(int minCol, int minRow, int maxCol, int maxRow) {
+		int firstX = Math.max(0, minCol) >> shift;
+		int lastX = Math.min(image.getWidth() - 1, Math.max(0, maxCol) >> shift);
+		int firstY = Math.max(0, minRow) >> shift;
+		int lastY = Math.min(image.getHeight() - 1, Math.max(0, maxRow) >> shift);
+		int count = (lastX - firstX + 1) << shift;
+		long cells = (long) block * block;
+		for (int y = firstY; y <= lastY; y++) {
+			Arrays.fill(totals, 0);
+			for (int r = y << shift; r < (y + 1) << shift; r++) {
+				source.copyRow(firstX << shift, r, count, row);
+				for (int i = 0; i < count; i++) {
+					sums[i >> shift] += spread[row[i] & 0xFF];
+				}
+
+				// Move the sums of the row to the totals before the fields of a sum can overflow
+				for (int x = 0; x <= lastX - firstX; x++) {
+					totals[3 * x] += sums[x] >> 40;
+					totals[3 * x + 1] += sums[x] >> 20 & 0xFFFFF;
+					totals[3 * x + 2] += sums[x] & 0xFFFFF;
+					sums[x] = 0;
+				}
+			}
+			int line = y * image.getWidth();
+			for (int x = firstX; x <= lastX; x++) {
+				int t = 3 * (x - firstX);
+				pixels[line + x] = (int) (totals[t] / cells) << 16 | (int) (totals[t + 1] / cells) << 8
+						| (int) (totals[t + 2] / cells);
+			}
+		}
+	}
+
+	// Getters
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	public int getBlock() {
+		return block;
+	}
+
+}
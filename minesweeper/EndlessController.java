@@ -0,0 +1,128 @@
+package minesweeper;
+
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import javax.swing.*;
+
+/**
+ * The controller of an endless game. It plays the same moves as Controller, on an endless model: a left
+ * click reveals a cell, a double click on a revealed cell reveals its neighbors once enough of them are
+ * flagged, and a right click places or removes a flag. The counter shows how many cells have been revealed,
+ * since there is no number of mines left to show, and the game ends only when a mine is revealed.
+ *
+ * @author Benjamin Revard
+ */
+public class EndlessController implements MouseListener {
+
+	private EndlessModel model; // The model of the game being played
+	private View view; // The view of the game
+	private GameClock clock; // How long the game has lasted
+	private Timer timer; // Swing timer that refreshes the time on display while the clock runs
+	private SplittableRandom seeds; // The generator of the seeds of new games
+
+	/**
+	 * Constructor: initializes the clock, and the timer that displays it.
+	 * Input: a model and a view
+	 */
+	public EndlessController(EndlessModel model, View view) {
+		this.model = model;
+		this.view = view;
+		seeds = new SplittableRandom();
+		clock = new GameClock();
+		timer = new Timer(250, e -> view.setTimer(clock.getSeconds()));
+	}
+
+	/**
+	 * Determines what to do with a mouse event generated by the GUI.
+	 * Input: a mouse event
+	 */
+	public void mouseClicked(MouseEvent e) {
+		if (e.getSource() instanceof JButton) {
+			resetClicked();
+		}
+		else {
+			BoardComponent board = (BoardComponent) e.getSource();
+			fieldClicked(e, board.columnAt(e.getX()), board.rowAt(e.getY()));
+		}
+		view.endAction();
+	}
+
+	/**
+	 * Starts a new endless game, with a new seed and the same density of mines.
+	 */
+	private void resetClicked() {
+		timer.stop();
+		clock.reset();
+		try {
+			model.close();
+		}
+		catch (IOException e) {
+			System.err.println("Couldn't delete the chunks of the game: " + e.getMessage());
+		}
+		model = new EndlessModel(seeds.nextLong(), model.getDensity());
+		view.setSource(model, 0);
+		view.reset();
+	}
+
+	/**
+	 * Processes a click on a mine field cell and takes appropriate action.
+	 * Input: a mouse event, and the column and row of the cell that was clicked
+	 */
+	private void fieldClicked(MouseEvent e, int col, int row) {
+		if (model.hasLost()) {
+			return;
+		}
+		if (!clock.getIsRunning()) {
+			clock.start();
+			timer.start();
+		}
+		if (SwingUtilities.isLeftMouseButton(e)) {
+			if (e.getClickCount() == 2 && model.isRevealed(col, row)
+					&& model.getNumFlaggedNeighbors(col, row) == model.getValue(col, row)) {
+				view.showValues(model.revealNeighbors(col, row));
+			}
+			else {
+				view.showValues(model.reveal(col, row));
+			}
+		}
+		else if (SwingUtilities.isRightMouseButton(e)) {
+			model.toggleFlag(col, row);
+			view.placeFlag(col, row);
+		}
+		view.setCounter((int) Math.min(Integer.MAX_VALUE, model.getRevealed()));
+		if (model.hasLost()) {
+			clock.stop();
+			timer.stop();
+			view.setTimer(clock.getSeconds());
+		}
+	}
+
+	/**
+	 * Pauses the clock, for example while the window is minimized.
+	 */
+	public void pause() {
+		if (clock.getIsRunning()) {
+			clock.pause();
+			timer.stop();
+		}
+	}
+
+	/**
+	 * Resumes the clock if it was paused.
+	 */
+	public void resume() {
+		if (clock.getIsPaused()) {
+			clock.resume();
+			timer.start();
+		}
+	}
+
+	// Methods from interface MouseListener that must be implemented
+	public void mousePressed(MouseEvent e) {};
+	public void mouseReleased(MouseEvent e) {};
+	public void mouseEntered(MouseEvent e) {};
+	public void mouseExited(MouseEvent e) {};
+
+}
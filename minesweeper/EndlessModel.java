@@ -0,0 +1,278 @@
+package minesweeper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The model of an endless mine field, which goes on without bounds in every direction. Cells are addressed
+ * by column and row, both of which may be negative; the game starts at the origin, whose neighbors are never
+ * mines, so revealing it always opens an area.
+ *
+ * The cells are kept in chunks of 64 by 64, made by a ChunkStore when the player first reaches them and
+ * dropped again when too many are in memory; the mines of every chunk follow from the seed, so the same
+ * seed always gives the same mine field. The methods mirror those of Model. There is no winning an endless
+ * game, only losing it.
+ *
+ * The density of mines can't be below MIN_DENSITY: with fewer mines, the cells with no neighboring mines
+ * would connect into regions without bounds, and a reveal in one of them would never end.
+ *
+ * @author Benjamin Revard
+ */
+public class EndlessModel implements CellSource {
+
+	public static final double MIN_DENSITY = 0.12; // The lowest share of cells that are mines
+	public static final int DEFAULT_CAPACITY = 4096; // The number of chunks kept in memory by default
+
+	private ChunkStore store; // The chunks of the mine field
+	private long seed; // The seed the mines are placed from
+	private double density; // The share of cells that are mines (>= MIN_DENSITY and < 1)
+	private long revealedCells; // The number of cells revealed by the player (>= 0)
+	private long flags; // The number of flags placed by the player (>= 0)
+	private boolean lost; // Whether a mine has been revealed
+	private CellBatch revealed; // The cells revealed by the last reveal, reused between reveals
+
+	/**
+	 * Constructor: creates an endless mine field, keeping the default number of chunks in memory and spilling
+	 * the others to the temporary directory.
+	 * Input: the seed the mines are placed from, and the share of cells that are mines
+	 */
+	public EndlessModel(long seed, double density) {
+		this(seed, density, DEFAULT_CAPACITY, null);
+	}
+
+	/**
+	 * Constructor: creates an endless mine field.
+	 * Input: the seed the mines are placed from, the share of cells that are mines, the largest number of
+	 * chunks to keep in memory, and the directory to spill the others to, or null for the temporary directory
+	 */
+	public EndlessModel(long seed, double density, int capacity, Path directory) {
+		if (!(density >= MIN_DENSITY && density < 1)) {
+			throw new IllegalArgumentException("The density of mines must be at least " + MIN_DENSITY
+					+ " and below 1: " + density);
+		}
+		this.seed = seed;
+		this.density = density;
+		this.store = new ChunkStore(seed, (int) Math.round(density * Chunk.CELLS), capacity, directory);
+		this.revealed = new CellBatch();
+	}
+
+	/**
+	 * Returns the number of neighboring cells that have been right clicked.
+	 * Input: the column and row of the cell to investigate
+	 */
+	public int getNumFlaggedNeighbors(int col, int row) {
+		int count = 0;
+		for (int dy = -1; dy <= 1; dy++) {
+			for (int dx = -1; dx <= 1; dx++) {
+				if ((dx != 0 || dy != 0) && isFlagged(col + dx, row + dy)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of neighboring cells that are mines and have been neither
+	 * left clicked nor right clicked.
+	 * Input: the column and row of the cell to investigate
+	 */
+	public int getNumHiddenMineNeighbors(int col, int row) {
+		int count = 0;
+		for (int dy = -1; dy <= 1; dy++) {
+			for (int dx = -1; dx <= 1; dx++) {
+				int c = col + dx;
+				int r = row + dy;
+				if ((dx != 0 || dy != 0) && isMine(c, r) && !isRevealed(c, r) && !isFlagged(c, r)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Reveals this cell if it is neither revealed nor flagged. If it has no neighboring mines,
+	 * its neighbors are revealed too, flooding outwards until numbered cells are reached.
+	 * Returns the newly revealed cells; the batch is reused by the next reveal.
+	 * Input: the column and row of the cell to reveal
+	 */
+	public CellBatch reveal(int col, int row) {
+		revealed.clear();
+		revealCell(col, row);
+		flood();
+		countRevealed();
+		return revealed;
+	}
+
+	/**
+	 * Reveals every neighbor of this cell that is neither revealed nor flagged, flooding outwards
+	 * from any of them that have no neighboring mines. This is what a double click does.
+	 * Returns the newly revealed cells; the batch is reused by the next reveal.
+	 * Input: the column and row of the cell whose neighbors to reveal
+	 */
+	public CellBatch revealNeighbors(int col, int row) {
+		revealed.clear();
+		revealNeighbors(col, row, store.getChunkOf(col, row));
+		flood();
+		countRevealed();
+		return revealed;
+	}
+
+	/**
+	 * Reveals this cell and adds it to the batch, unless it is already revealed or flagged.
+	 * Input: the column and row of the cell
+	 */
+	private void revealCell(int col, int row) {
+		if (store.getChunkOf(col, row).reveal(Chunk.index(col, row))) {
+			revealed.add(col, row);
+		}
+	}
+
+	/**
+	 * Reveals every neighbor of this cell that is neither revealed nor flagged, and adds them to the batch.
+	 * When the cell isn't on the edge of its chunk, its neighbors are in the same chunk and are reached by
+	 * their index alone; otherwise each is looked up in the store.
+	 * Input: the column and row of the cell, and its chunk
+	 */
+	private void revealNeighbors(int col, int row, Chunk chunk) {
+		int x = col & Chunk.MASK;
+		int y = row & Chunk.MASK;
+		boolean inside = x > 0 && x < Chunk.MASK && y > 0 && y < Chunk.MASK;
+		for (int dy = -1; dy <= 1; dy++) {
+			for (int dx = -1; dx <= 1; dx++) {
+				if (dx == 0 && dy == 0) {
+					continue;
+				}
+				if (!inside) {
+					revealCell(col + dx, row + dy);
+				}
+				else if (chunk.reveal((y + dy) << Chunk.BITS | (x + dx))) {
+					revealed.add(col + dx, row + dy);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Floods outwards from the cells of the batch: every cell that has no neighboring mines has its
+	 * hidden, unflagged neighbors revealed and appended to the batch, which is its own work queue.
+	 */
+	private void flood() {
+		for (int i = 0; i < revealed.size(); i++) {
+			int col = revealed.getColumn(i);
+			int row = revealed.getRow(i);
+			Chunk chunk = store.getChunkOf(col, row);
+			int index = Chunk.index(col, row);
+			if (chunk.getValue(index) == 0 && !chunk.isMine(index)) {
+				revealNeighbors(col, row, chunk);
+			}
+		}
+	}
+
+	/**
+	 * Updates the counters for the cells of the last reveal.
+	 */
+	private void countRevealed() {
+		revealedCells += revealed.size();
+		for (int i = 0; i < revealed.size(); i++) {
+			if (isMine(revealed.getColumn(i), revealed.getRow(i))) {
+				lost = true;
+			}
+		}
+	}
+
+	/**
+	 * Places a flag on this cell if it has none, or removes the flag if it has one. Cells that
+	 * have been revealed can't be flagged. Returns whether the cell is flagged afterwards.
+	 * Input: the column and row of the cell
+	 */
+	public boolean toggleFlag(int col, int row) {
+		Chunk chunk = store.getChunkOf(col, row);
+		int index = Chunk.index(col, row);
+		if (chunk.isRevealed(index)) {
+			return false;
+		}
+		boolean flagged = chunk.toggleFlag(index);
+		flags += flagged ? 1 : -1;
+		return flagged;
+	}
+
+	/**
+	 * Copies a run of cells of one row, packed as in Board, a chunk at a time.
+	 * Input: the column of the first cell and its row, the number of cells, and the array to copy them to
+	 */
+	public void copyRow(int col, int row, int count, byte[] into) {
+		int i = 0;
+		while (i < count) {
+			int c = col + i;
+			int n = Math.min(count - i, Chunk.SIZE - (c & Chunk.MASK));
+			System.arraycopy(store.getChunkOf(c, row).getCells(), Chunk.index(c, row), into, i, n);
+			i += n;
+		}
+	}
+
+	/**
+	 * Checks if the player has lost the game.
+	 */
+	public boolean hasLost() {
+		return lost;
+	}
+
+	/**
+	 * Closes the store of the mine field, deleting its spill file. The model must not be used afterwards.
+	 */
+	public void close() throws IOException {
+		store.close();
+	}
+
+	// Getters
+	public int getValue(int col, int row) {
+		return store.getChunkOf(col, row).getValue(Chunk.index(col, row));
+	}
+
+	public boolean isMine(int col, int row) {
+		return store.getChunkOf(col, row).isMine(Chunk.index(col, row));
+	}
+
+	public boolean isRevealed(int col, int row) {
+		return store.getChunkOf(col, row).isRevealed(Chunk.index(col, row));
+	}
+
+	public boolean isFlagged(int col, int row) {
+		return store.getChunkOf(col, row).isFlagged(Chunk.index(col, row));
+	}
+
+	public boolean getIsBounded() {
+		return false;
+	}
+
+	public int getWidth() {
+		return 0;
+	}
+
+	public int getHeight() {
+		return 0;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public double getDensity() {
+		return density;
+	}
+
+	public long getRevealed() {
+		return revealedCells;
+	}
+
+	public long getFlags() {
+		return flags;
+	}
+
+	public ChunkStore getStore() {
+		return store;
+	}
+
+}
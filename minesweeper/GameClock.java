@@ -0,0 +1,107 @@
+package minesweeper;
+
+/**
+ * An instance measures how long a game has lasted. The time is read from the monotonic
+ * System.nanoTime clock whenever it is asked for, rather than counted in ticks, so it
+ * stays right however late or irregularly the display is refreshed.
+ *
+ * @author Benjamin Revard
+ */
+public class GameClock {
+
+	private long startedAt; // The value of System.nanoTime when the clock last started or resumed
+	private long elapsed; // The time counted before that, in nanoseconds (>= 0)
+	private boolean running; // Whether the clock is counting
+	private boolean paused; // Whether the clock has been paused, and will count again when resumed
+
+	/**
+	 * Constructor: makes a clock that reads zero and isn't running.
+	 */
+	public GameClock() {
+		reset();
+	}
+
+	/**
+	 * Sets the clock back to zero and stops it.
+	 */
+	public void reset() {
+		elapsed = 0;
+		running = false;
+		paused = false;
+	}
+
+	/**
+	 * Starts the clock from zero.
+	 */
+	public void start() {
+		elapsed = 0;
+		startedAt = System.nanoTime();
+		running = true;
+		paused = false;
+	}
+
+	/**
+	 * Starts the clock from a time already counted, as when a saved game is loaded.
+	 * Input: the time already counted, in nanoseconds (>= 0)
+	 */
+	public void startFrom(long elapsedNanos) {
+		start();
+		elapsed = elapsedNanos;
+	}
+	
+	/**
+	 * Stops the clock for good, keeping the time it reads.
+	 */
+	public void stop() {
+		if (running) {
+			elapsed += System.nanoTime() - startedAt;
+		}
+		running = false;
+		paused = false;
+	}
+
+	/**
+	 * Stops the clock until it is resumed. Nothing happens if it isn't running.
+	 */
+	public void pause() {
+		if (running) {
+			stop();
+			paused = true;
+		}
+	}
+
+	/**
+	 * Starts a paused clock counting again from where it was paused.
+	 */
+	public void resume() {
+		if (paused) {
+			startedAt = System.nanoTime();
+			running = true;
+			paused = false;
+		}
+	}
+
+	/**
+	 * Returns how long the clock has counted, in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return running ? elapsed + System.nanoTime() - startedAt : elapsed;
+	}
+
+	/**
+	 * Returns how long the clock has counted, in whole seconds.
+	 */
+	public int getSeconds() {
+		return (int) (getElapsedNanos() / 1000000000L);
+	}
+
+	// Getters
+	public boolean getIsRunning() {
+		return running;
+	}
+
+	public boolean getIsPaused() {
+		return paused;
+	}
+
+}
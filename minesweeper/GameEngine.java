@@ -0,0 +1,150 @@
+package minesweeper;
+
+/**
+ * This holds the rules of the mine sweeper game, apart from any user interface.
+ * It applies moves (revealing a cell, flagging a cell, and revealing around a cell)
+ * to a model, and reports what each move changed. It uses no AWT or Swing classes,
+ * so games can be played by bots, replays and load tests at full speed.
+ *
+ * @author Benjamin Revard
+ */
+public class GameEngine {
+
+	private Model model; // The model the moves are applied to
+	private RevealBatch none; // An empty batch, for moves that reveal nothing
+	private MoveResult result; // The result of the last move, reused between moves
+	private Solver solver; // The solver told about every reveal, or null if there is none
+
+	/**
+	 * Constructor: makes an engine that plays on this model.
+	 * Input: the model
+	 */
+	public GameEngine(Model model) {
+		this.result = new MoveResult();
+		setModel(model);
+	}
+
+	/**
+	 * Reveals a cell, which is what a left click does. Flagged and revealed cells are left alone.
+	 * Revealing a mine loses the game and reveals the whole mine field.
+	 * Input: the column and row of the cell
+	 */
+	public MoveResult reveal(int col, int row) {
+		Board board = model.getBoard();
+		int index = board.index(col, row);
+		if (isOver() || board.isRevealed(index) || board.isFlagged(index)) {
+			return nothing();
+		}
+		else if (board.isMine(index)) {
+			return lose();
+		}
+		RevealBatch revealed = model.reveal(col, row);
+		if (solver != null) {
+			solver.revealed(revealed);
+		}
+		result.set(getStatus(), revealed, false, 0);
+		return result;
+	}
+
+	/**
+	 * Places a flag on a hidden cell, or removes the flag if it has one, which is what a right click does.
+	 * Input: the column and row of the cell
+	 */
+	public MoveResult toggleFlag(int col, int row) {
+		Board board = model.getBoard();
+		if (isOver() || board.isRevealed(board.index(col, row))) {
+			return nothing();
+		}
+		int flagChange = model.toggleFlag(col, row) ? 1 : -1;
+		result.set(getStatus(), none, false, flagChange);
+		return result;
+	}
+
+	/**
+	 * Reveals the neighbors of a revealed cell, which is what a double click does. It only happens when
+	 * the number of flags around the cell matches its value; if any of those flags is wrong, the game
+	 * is lost. On a hidden cell, this is the same as reveal.
+	 * Input: the column and row of the cell
+	 */
+	public MoveResult chord(int col, int row) {
+		Board board = model.getBoard();
+		int index = board.index(col, row);
+		if (!board.isRevealed(index)) {
+			return reveal(col, row);
+		}
+		else if (isOver() || model.getNumFlaggedNeighbors(col, row) != board.getValue(index)) {
+			return nothing();
+		}
+		else if (model.getNumHiddenMineNeighbors(col, row) != 0) {
+			return lose();
+		}
+		RevealBatch revealed = model.revealNeighbors(col, row);
+		if (solver != null) {
+			solver.revealed(revealed);
+		}
+		result.set(getStatus(), revealed, false, 0);
+		return result;
+	}
+
+	/**
+	 * Returns the state of the game.
+	 */
+	public GameStatus getStatus() {
+		if (model.hasLost()) {
+			return GameStatus.LOST;
+		}
+		else if (model.hasWon()) {
+			return GameStatus.WON;
+		}
+		return GameStatus.CONTINUE;
+	}
+
+	/**
+	 * Checks if the game is over, either won or lost.
+	 */
+	public boolean isOver() {
+		return model.hasLost() || model.hasWon();
+	}
+
+	/**
+	 * Loses the game by revealing every cell.
+	 */
+	private MoveResult lose() {
+		model.revealAll();
+		result.set(GameStatus.LOST, none, true, 0);
+		return result;
+	}
+
+	/**
+	 * Returns the result of a move that changed nothing.
+	 */
+	private MoveResult nothing() {
+		result.set(getStatus(), none, false, 0);
+		return result;
+	}
+
+	// Getters
+	public Model getModel() {
+		return model;
+	}
+
+	public Solver getSolver() {
+		return solver;
+	}
+
+	// Setters
+	public void setModel(Model model) {
+		this.model = model;
+		none = new RevealBatch(model.getBoard());
+	}
+
+	/**
+	 * Attaches a solver to this engine, which keeps it up to date with every cell the moves reveal.
+	 * The solver must be for the engine's model.
+	 * Input: the solver, or null to detach it
+	 */
+	public void setSolver(Solver solver) {
+		this.solver = solver;
+	}
+
+}
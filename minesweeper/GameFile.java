@@ -0,0 +1,398 @@
+package minesweeper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This saves games to files and loads them back, in a compact binary format.
+ *
+ * A file starts with a 32-byte header, in big-endian order:
+ *   0  magic number "MSWP"
+ *   4  version of the format (short)
+ *   6  flags (short): COMPRESSED if the planes are deflated, GENERATED if the mines have been placed
+ *   8  number of columns of the mine field (int)
+ *   12 number of mines (int)
+ *   16 how long the game had lasted, in nanoseconds (long)
+ *   24 number of bytes after the header (int)
+ *   28 number of rows of the mine field (int)
+ * Version 1 files held square mine fields, with zero in place of the number of rows.
+ * It is followed by three bit planes, with one bit per cell counted row by row from the top left, the lowest
+ * bit of each byte first: the mines, then the revealed cells, then the flagged cells. That is 3 bits per cell,
+ * and the planes are deflated as one stream if the file is compressed. The values of the cells aren't saved;
+ * they are counted again from the mines.
+ *
+ * Files are read through memory-mapped buffers, and uncompressed files are written through them too; compressed
+ * files, which are what the game saves, are streamed through the deflater to the file channel instead. Either way
+ * the planes are encoded and decoded a chunk at a time by a cursor walking the board row by row, so no cell
+ * number is ever divided to find its cell, and a mine field of tens of millions of cells needs no copy of the
+ * file on the heap. Loading still expands the planes into the byte-per-cell board of a new model.
+ *
+ * @author Benjamin Revard
+ */
+public class GameFile {
+
+	public static final int MAGIC = 0x4D535750; // "MSWP"
+	public static final short VERSION = 2; // The version of the format this class writes
+	public static final short COMPRESSED = 0x01; // Flag set when the planes are deflated
+	public static final short GENERATED = 0x02; // Flag set when the mines have been placed
+
+	private static final int HEADER_SIZE = 32; // The number of bytes of the header
+	private static final int CHUNK = 1 << 16; // The number of bytes deflated or inflated at a time
+
+	/**
+	 * Saves a game to a file, replacing the file if it exists. An uncompressed file is written through a mapping,
+	 * and a compressed one is streamed to the file as it is deflated.
+	 * Input: the model of the game, how long it has lasted in nanoseconds, the file, and whether to compress it
+	 */
+	public static void save(Model model, long elapsedNanos, Path path, boolean compress) throws IOException {
+		Board board = model.getBoard();
+		long rawBytes = 3 * planeBytes(model.getWidth(), model.getHeight());
+		short flags = (short) ((compress ? COMPRESSED : 0) | (model.getIsGenerated() ? GENERATED : 0));
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			if (!compress) {
+				MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + rawBytes);
+				putHeader(map, flags, board, model.getMines(), elapsedNanos, rawBytes);
+				Cursor cursor = new Cursor(board);
+				byte[] chunk = new byte[CHUNK];
+				for (long i = 0; i < rawBytes; i += CHUNK) {
+					int count = (int) Math.min(CHUNK, rawBytes - i);
+					cursor.encode(chunk, count);
+					map.put(chunk, 0, count);
+				}
+				map.force();
+				return;
+			}
+
+			// Deflate the planes, then fill in the size in the header
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			putHeader(header, flags, board, model.getMines(), elapsedNanos, 0);
+			channel.write(header.flip());
+			int stored = deflate(board, channel);
+			channel.write(ByteBuffer.allocate(4).putInt(0, stored), 24);
+		}
+	}
+
+	/**
+	 * Returns a game in the format of a compressed file, as an array, for embedding in other files.
+	 * Input: the model of the game, and how long it has lasted in nanoseconds
+	 */
+	public static byte[] toBytes(Model model, long elapsedNanos) throws IOException {
+		return toBytes(model.getBoard(), model.getMines(), model.getIsGenerated(), elapsedNanos);
+	}
+
+	/**
+	 * Returns a game in the format of a compressed file, as an array, from its board alone, such as a copy
+	 * taken so the game can go on while it is encoded.
+	 * Input: the board, the number of mines, whether they have been placed, and how long the game has lasted
+	 * in nanoseconds
+	 */
+	static byte[] toBytes(Board board, int mines, boolean generated, long elapsedNanos) throws IOException {
+		short flags = (short) (COMPRESSED | (generated ? GENERATED : 0));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		putHeader(header, flags, board, mines, elapsedNanos, 0);
+		bytes.write(header.array());
+		int stored = deflate(board, Channels.newChannel(bytes));
+		byte[] array = bytes.toByteArray();
+		ByteBuffer.wrap(array).putInt(24, stored);
+		return array;
+	}
+
+	/**
+	 * Loads a game from a buffer in the format of a file, such as one returned by toBytes.
+	 * Input: the buffer, from its position to its limit
+	 */
+	public static SavedGame fromBytes(ByteBuffer buffer) throws IOException {
+		return read(buffer.slice(), "embedded game");
+	}
+
+	/**
+	 * Loads a game from a file.
+	 * Input: the file
+	 */
+	public static SavedGame load(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), path.toString());
+		}
+	}
+
+	/**
+	 * Decodes a game in the format of a file.
+	 * Input: the buffer holding the file, from index 0 to its limit, and the name of the file, for errors
+	 */
+	private static SavedGame read(ByteBuffer map, String name) throws IOException {
+		if (map.limit() < HEADER_SIZE || map.getInt(0) != MAGIC) {
+			throw new IOException("Not a saved game: " + name);
+		}
+		short version = map.getShort(4);
+		if (version != 1 && version != VERSION) {
+			throw new IOException("Unsupported save file version " + version + ": " + name);
+		}
+		short flags = map.getShort(6);
+		int width = map.getInt(8);
+		int height = version == 1 ? width : map.getInt(28);
+		int mines = map.getInt(12);
+		long elapsedNanos = map.getLong(16);
+		int stored = map.getInt(24);
+		if (!Board.fits(width, height) || mines < 0 || mines > width * height || elapsedNanos < 0
+				|| stored < 0 || stored > map.limit() - HEADER_SIZE) {
+			throw new IOException("Corrupt saved game: " + name);
+		}
+
+		// Decode the planes into the board of a model whose mines aren't placed yet
+		Model model = new Model(width, height, mines, new SplittableRandom(), true);
+		Board board = model.getBoard();
+		long rawBytes = 3 * planeBytes(width, height);
+		ByteBuffer payload = map.slice(HEADER_SIZE, stored);
+		if ((flags & COMPRESSED) == 0) {
+			if (stored != rawBytes) {
+				throw new IOException("Corrupt saved game: " + name);
+			}
+			Cursor cursor = new Cursor(board);
+			byte[] chunk = new byte[CHUNK];
+			while (payload.hasRemaining()) {
+				int count = Math.min(CHUNK, payload.remaining());
+				payload.get(chunk, 0, count);
+				cursor.decode(chunk, count);
+			}
+		}
+		else {
+			inflate(board, payload, name);
+		}
+		boolean generated = (flags & GENERATED) != 0;
+		if (model.restore(generated) != (generated ? mines : 0)) {
+			throw new IOException("Corrupt saved game: " + name);
+		}
+		return new SavedGame(model, elapsedNanos);
+	}
+
+	/**
+	 * Deflates the planes a chunk at a time, and writes them to a channel.
+	 * Returns the number of bytes written.
+	 * Input: the board, and the channel
+	 */
+	private static int deflate(Board board, WritableByteChannel channel) throws IOException {
+		long rawBytes = 3 * planeBytes(board.getWidth(), board.getHeight());
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			Cursor cursor = new Cursor(board);
+			byte[] input = new byte[CHUNK];
+			ByteBuffer output = ByteBuffer.allocate(CHUNK);
+			for (long i = 0; i < rawBytes; i += CHUNK) {
+				int count = (int) Math.min(CHUNK, rawBytes - i);
+				cursor.encode(input, count);
+				deflater.setInput(input, 0, count);
+				while (!deflater.needsInput()) {
+					drain(deflater, output, channel);
+				}
+			}
+			deflater.finish();
+			while (!deflater.finished()) {
+				drain(deflater, output, channel);
+			}
+			if (deflater.getBytesWritten() > Integer.MAX_VALUE) {
+				throw new IOException("The game is too large to save");
+			}
+			return (int) deflater.getBytesWritten();
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Inflates the planes a chunk at a time, decoding each chunk into the board.
+	 * Input: the board, the deflated planes, and the name of the file, for errors
+	 */
+	private static void inflate(Board board, ByteBuffer payload, String name) throws IOException {
+		long rawBytes = 3 * planeBytes(board.getWidth(), board.getHeight());
+		Inflater inflater = new Inflater();
+		try {
+			Cursor cursor = new Cursor(board);
+			inflater.setInput(payload);
+			byte[] output = new byte[CHUNK];
+			long i = 0;
+			while (!inflater.finished()) {
+				int count = inflater.inflate(output);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new IOException("Truncated saved game: " + name);
+				}
+				else if (i + count > rawBytes) {
+					throw new IOException("Corrupt saved game: " + name);
+				}
+				cursor.decode(output, count);
+				i += count;
+			}
+			if (i != rawBytes) {
+				throw new IOException("Truncated saved game: " + name);
+			}
+		}
+		catch (DataFormatException e) {
+			throw new IOException("Corrupt saved game: " + name, e);
+		}
+		finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Writes the header.
+	 * Input: the buffer, the flags, the board, the number of mines, how long the game has lasted, and the number
+	 * of bytes after the header
+	 */
+	private static void putHeader(ByteBuffer buffer, short flags, Board board, int mines, long elapsedNanos,
+			long stored) {
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.putShort(flags);
+		buffer.putInt(board.getWidth());
+		buffer.putInt(mines);
+		buffer.putLong(elapsedNanos);
+		buffer.putInt((int) stored);
+		buffer.putInt(board.getHeight());
+	}
+
+	/**
+	 * Writes out what the deflater has ready.
+	 * Input: the deflater, a buffer to deflate into, and the channel to write to
+	 */
+	private static void drain(Deflater deflater, ByteBuffer output, WritableByteChannel channel) throws IOException {
+		output.clear();
+		deflater.deflate(output);
+		output.flip();
+		while (output.hasRemaining()) {
+			channel.write(output);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes of each plane.
+	 * Input: the number of columns and the number of rows of the mine field
+	 */
+	private static long planeBytes(int width, int height) {
+		return ((long) width * height + 7) / 8;
+	}
+
+	/**
+	 * A position in the planes, which walks the board row by row, one plane after the other, so that encoding or
+	 * decoding a byte only steps over its eight cells.
+	 */
+	private static class Cursor {
+
+		// The position of the bit of each plane in a cell
+		private static final int[] SHIFTS = {Integer.numberOfTrailingZeros(Board.MINE),
+				Integer.numberOfTrailingZeros(Board.REVEALED), Integer.numberOfTrailingZeros(Board.FLAGGED)};
+
+		private Board board; // The board the planes are of
+		private int width; // The number of columns of the mine field (> 0)
+		private int height; // The number of rows of the mine field (> 0)
+		private int plane; // The plane of the next cell (0-2), or 3 past the last plane
+		private int col; // The column of the next cell
+		private int row; // The row of the next cell, or height at the end of a plane
+		private int index; // The index of the next cell in the board
+
+		private Cursor(Board board) {
+			this.board = board;
+			this.width = board.getWidth();
+			this.height = board.getHeight();
+			this.index = board.index(0, 0);
+		}
+
+		/**
+		 * Fills an array with the next bytes of the planes.
+		 * Input: the array, and the number of bytes to fill, which must not reach past the last plane
+		 */
+		private void encode(byte[] into, int count) {
+			for (int k = 0; k < count; k++) {
+				int shift = SHIFTS[plane];
+				int bits = 0;
+				if (col + 8 <= width) {
+
+					// The eight cells lie in one row, so they are read without testing for its end
+					for (int b = 0; b < 8; b++) {
+						bits |= (board.getState(index + b) >> shift & 1) << b;
+					}
+					index += 8;
+					col += 8;
+					if (col == width) {
+						col = 0;
+						row++;
+						index += 2;
+					}
+				}
+				else {
+					for (int b = 0; b < 8 && row < height; b++) {
+						bits |= (board.getState(index) >> shift & 1) << b;
+						advance();
+					}
+				}
+				into[k] = (byte) bits;
+				if (row == height) {
+					nextPlane();
+				}
+			}
+		}
+
+		/**
+		 * Applies the next bytes of the planes to the board. Mines are added with their neighbor counts.
+		 * Input: the array holding the bytes, and their number, which must not reach past the last plane
+		 */
+		private void decode(byte[] from, int count) {
+			for (int k = 0; k < count; k++) {
+				int bits = from[k];
+				for (int b = 0; b < 8 && row < height; b++) {
+					if ((bits & (1 << b)) != 0) {
+						if (plane == 0) {
+							board.addMine(index);
+						}
+						else if (plane == 1) {
+							board.setRevealed(index, true);
+						}
+						else {
+							board.setFlagged(index, true);
+						}
+					}
+					advance();
+				}
+				if (row == height) {
+					nextPlane();
+				}
+			}
+		}
+
+		/**
+		 * Moves to the next cell, stepping over the border at the end of a row.
+		 */
+		private void advance() {
+			index++;
+			if (++col == width) {
+				col = 0;
+				row++;
+				index += 2;
+			}
+		}
+
+		/**
+		 * Moves to the first cell of the next plane.
+		 */
+		private void nextPlane() {
+			plane++;
+			row = 0;
+			index = board.index(0, 0);
+		}
+
+	}
+
+}
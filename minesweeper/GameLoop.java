@@ -0,0 +1,100 @@
+package minesweeper;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The game thread: the one thread that changes the model. Other threads, above all the event dispatch
+ * thread, submit commands to it instead of playing moves themselves, so a move that reveals millions of
+ * cells never holds up the user interface, and the model needs no locks since only one thread ever uses it.
+ *
+ * Commands wait in a lock-free queue, which any number of threads may add to, and the game thread runs them
+ * in the order they arrived. When the queue runs dry, the end of batch task runs, which is where the changes
+ * of the whole batch are published at once, and the thread sleeps until the next command arrives. So that
+ * commands arriving faster than they run can't hold changes back for good, a batch also ends once it has
+ * run for a frame, MAX_BATCH_NANOS. A command
+ * that throws is reported and skipped, as the event dispatch thread does with its own tasks.
+ *
+ * @author Benjamin Revard
+ */
+public class GameLoop {
+
+	public static final long MAX_BATCH_NANOS = 16000000; // The longest a batch runs before it is published
+
+	private ConcurrentLinkedQueue<Runnable> commands; // The commands waiting to run
+	private Runnable endOfBatch; // What to do each time the queue runs dry after running commands
+	private Thread thread; // The game thread
+	private volatile boolean stopped; // Whether the thread has been asked to stop
+
+	/**
+	 * Constructor: makes the game thread, which doesn't run until started.
+	 * Input: the name of the thread, and what to do each time the queue runs dry after running commands
+	 */
+	public GameLoop(String name, Runnable endOfBatch) {
+		this.endOfBatch = endOfBatch;
+		commands = new ConcurrentLinkedQueue<Runnable>();
+		thread = new Thread(this::run, name);
+		thread.setDaemon(true);
+	}
+
+	/**
+	 * Starts the game thread.
+	 */
+	public void start() {
+		thread.start();
+	}
+
+	/**
+	 * Adds a command to the queue, and wakes the game thread if it sleeps. Never blocks.
+	 * Input: the command
+	 */
+	public void submit(Runnable command) {
+		commands.add(command);
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Asks the game thread to stop once the command it is running ends. Commands still waiting are dropped.
+	 */
+	public void stop() {
+		stopped = true;
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Runs commands as they arrive until stopped.
+	 */
+	private void run() {
+		while (!stopped) {
+			boolean ran = false;
+			long started = System.nanoTime();
+			Runnable command;
+			while (!stopped && System.nanoTime() - started < MAX_BATCH_NANOS && (command = commands.poll()) != null) {
+				try {
+					command.run();
+				}
+				catch (RuntimeException e) {
+					System.err.println("A command failed on the game thread:");
+					e.printStackTrace();
+				}
+				ran = true;
+			}
+			if (ran) {
+				endOfBatch.run();
+			}
+			if (commands.isEmpty() && !stopped) {
+				LockSupport.park(this);
+			}
+		}
+	}
+
+	// Getters
+	public boolean getIsGameThread() {
+		return Thread.currentThread() == thread;
+	}
+
+	public int getWaiting() {
+		return commands.size();
+	}
+
+}
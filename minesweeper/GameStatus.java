@@ -0,0 +1,10 @@
+package minesweeper;
+
+/**
+ * The state of a game after a move: still going, won or lost.
+ *
+ * @author Benjamin Revard
+ */
+public enum GameStatus {
+	CONTINUE, WON, LOST
+}
@@ -0,0 +1,167 @@
+package minesweeper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative values, such as latencies in nanoseconds, that records without allocating or locking.
+ *
+ * Values below 64 are counted exactly. Larger values are counted in buckets of log-linear width, as in
+ * HdrHistogram: each power of two is split into 32 equal buckets, so a value is known to within about 3%
+ * however large it is, and every long fits in fewer than 1,900 buckets. Recording finds the bucket with
+ * a leading-zero count and a shift, and increments it atomically, so any thread may record while others read.
+ *
+ * @author Benjamin Revard
+ */
+public class Histogram implements HistogramMBean {
+
+	private static final int SUB_BITS = 5; // The log of the number of buckets each power of two is split into
+	private static final int SUB = 1 << SUB_BITS; // The number of buckets each power of two is split into
+	private static final int BUCKETS = SUB * (62 - SUB_BITS) + 2 * SUB; // The number of buckets
+
+	private String name; // The name of the histogram, as shown in reports
+	private boolean nanos; // Whether the values are durations in nanoseconds
+	private AtomicLongArray counts; // The number of values recorded in each bucket
+	private AtomicLong count; // The number of values recorded (>= 0)
+	private AtomicLong sum; // The sum of the values recorded (>= 0)
+	private AtomicLong max; // The largest value recorded (>= 0)
+
+	/**
+	 * Constructor: makes an empty histogram.
+	 * Input: the name of the histogram, and whether its values are durations in nanoseconds
+	 */
+	public Histogram(String name, boolean nanos) {
+		this.name = name;
+		this.nanos = nanos;
+		this.counts = new AtomicLongArray(BUCKETS);
+		this.count = new AtomicLong();
+		this.sum = new AtomicLong();
+		this.max = new AtomicLong();
+	}
+
+	/**
+	 * Records a value. Negative values are recorded as zero.
+	 * Input: the value
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts.incrementAndGet(bucket(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long largest = max.get();
+		while (value > largest && !max.compareAndSet(largest, value)) {
+			largest = max.get();
+		}
+	}
+
+	/**
+	 * Returns the bucket of a value.
+	 * Input: the value (>= 0)
+	 */
+	private static int bucket(long value) {
+		int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+		return SUB * shift + (int) (value >>> shift);
+	}
+
+	/**
+	 * Returns the largest value that falls in a bucket.
+	 * Input: the bucket
+	 */
+	private static long highest(int bucket) {
+		if (bucket < 2 * SUB) {
+			return bucket;
+		}
+		int shift = bucket / SUB - 1;
+		long mantissa = bucket % SUB + SUB;
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+	/**
+	 * Returns the value below or at which a share of the values recorded fall, to within the width of its
+	 * bucket, or 0 if none has been recorded.
+	 * Input: the share, as a percentage (>= 0 and <= 100)
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = count.get();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highest(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Returns the mean of the values recorded, or 0 if none has been recorded.
+	 */
+	public double getMean() {
+		long total = count.get();
+		return total == 0 ? 0 : (double) sum.get() / total;
+	}
+
+	/**
+	 * Forgets every value recorded. Values recorded at the same time may be partly counted.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Returns a summary on one line, with durations in microseconds.
+	 */
+	public String toString() {
+		if (nanos) {
+			return String.format("%s: %d, mean %.1fus, p50 %.1fus, p90 %.1fus, p99 %.1fus, max %.1fus", name,
+					getCount(), getMean() / 1e3, getP50() / 1e3, getP90() / 1e3, getP99() / 1e3, getMax() / 1e3);
+		}
+		return String.format("%s: %d, mean %.1f, p50 %d, p90 %d, p99 %d, max %d", name,
+				getCount(), getMean(), getP50(), getP90(), getP99(), getMax());
+	}
+
+	// Getters
+	public String getName() {
+		return name;
+	}
+
+	public boolean getIsNanos() {
+		return nanos;
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public long getP50() {
+		return getValueAtPercentile(50);
+	}
+
+	public long getP90() {
+		return getValueAtPercentile(90);
+	}
+
+	public long getP99() {
+		return getValueAtPercentile(99);
+	}
+
+	public long getP999() {
+		return getValueAtPercentile(99.9);
+	}
+
+}
@@ -0,0 +1,60 @@
+package minesweeper;
+
+/**
+ * The management interface of a histogram, through which JMX clients such as JConsole read it.
+ *
+ * @author Benjamin Revard
+ */
+public interface HistogramMBean {
+
+	/**
+	 * Returns the name of the histogram.
+	 */
+	String getName();
+
+	/**
+	 * Returns whether the values are durations in nanoseconds.
+	 */
+	boolean getIsNanos();
+
+	/**
+	 * Returns the number of values recorded.
+	 */
+	long getCount();
+
+	/**
+	 * Returns the mean of the values recorded.
+	 */
+	double getMean();
+
+	/**
+	 * Returns the largest value recorded.
+	 */
+	long getMax();
+
+	/**
+	 * Returns the median of the values recorded.
+	 */
+	long getP50();
+
+	/**
+	 * Returns the 90th percentile of the values recorded.
+	 */
+	long getP90();
+
+	/**
+	 * Returns the 99th percentile of the values recorded.
+	 */
+	long getP99();
+
+	/**
+	 * Returns the 99.9th percentile of the values recorded.
+	 */
+	long getP999();
+
+	/**
+	 * Forgets every value recorded.
+	 */
+	void reset();
+
+}
@@ -0,0 +1,89 @@
+package minesweeper;
+
+/**
+ * A first-in first-out queue of ints, kept in a ring buffer that grows when it is full.
+ * It holds primitive board indices without boxing, so work lists over the mine field
+ * allocate nothing once they have grown to their working size.
+ *
+ * @author Benjamin Revard
+ */
+public class IntQueue {
+
+	private int[] items; // The ring buffer (its length is a power of two)
+	private int head; // The position of the first item
+	private int size; // The number of items in the queue (>= 0)
+
+	/**
+	 * Constructor: makes an empty queue.
+	 */
+	public IntQueue() {
+		items = new int[16];
+		head = 0;
+		size = 0;
+	}
+
+	/**
+	 * Adds an item to the end of the queue.
+	 * Input: the item
+	 */
+	public void add(int item) {
+		if (size == items.length) {
+			int[] grown = new int[items.length * 2];
+			for (int i = 0; i < size; i++) {
+				grown[i] = get(i);
+			}
+			items = grown;
+			head = 0;
+		}
+		items[(head + size) & (items.length - 1)] = item;
+		size++;
+	}
+
+	/**
+	 * Removes and returns the item at the front of the queue.
+	 * Precondition: the queue isn't empty.
+	 */
+	public int poll() {
+		int item = items[head];
+		head = (head + 1) & (items.length - 1);
+		size--;
+		return item;
+	}
+
+	/**
+	 * Returns the i-th item from the front of the queue, without removing it.
+	 * Input: the position of the item (>= 0 and < size)
+	 */
+	public int get(int i) {
+		return items[(head + i) & (items.length - 1)];
+	}
+
+	/**
+	 * Removes every item, keeping the storage.
+	 */
+	public void clear() {
+		head = 0;
+		size = 0;
+	}
+
+	/**
+	 * Returns the items, from front to back, in a new array.
+	 */
+	public int[] toArray() {
+		int[] array = new int[size];
+		for (int i = 0; i < size; i++) {
+			array[i] = get(i);
+		}
+		return array;
+	}
+
+	// Getters
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+}
@@ -0,0 +1,244 @@
+package minesweeper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * An instance records every move of a game in an append-only file, for bug reports and auditing.
+ *
+ * The file starts with a header: the magic number "MSJR" and a version byte, then as variable-length integers
+ * the number of columns and the number of rows of the mine field, the number of mines, and the wall-clock time
+ * the journal started, in milliseconds. (Version 1 had a single length, for square mine fields.) Then come
+ * records, each starting with a kind byte:
+ * - a move (REVEAL, FLAG, UNFLAG or CHORD), followed by the milliseconds since the previous move and the change
+ *   in cell number (row by row from the top left) from the previous move, zigzag-encoded so small steps either
+ *   way take one byte. Most moves take three or four bytes.
+ * - a checkpoint (CHECKPOINT), followed by the number of moves before it and the size of a snapshot of the game
+ *   in the save file format, then the snapshot. A checkpoint is written when a game starts with its mines placed,
+ *   after the move that places them, and every checkpoint interval moves after that, so a replayer can rebuild
+ *   the state at any move from the nearest checkpoint.
+ * Integers are written as varints (see Varint).
+ *
+ * Recording only queues the move, and for a checkpoint a copy of the cells of the board, which is a single array
+ * copy. A background thread encodes the queue into a buffer, snapshots included, and writes it to the file channel
+ * whenever the queue runs dry, so the game waits neither for the disk nor for the snapshots to be deflated.
+ *
+ * @author Benjamin Revard
+ */
+public class Journal {
+
+	public static final int MAGIC = 0x4D534A52; // "MSJR"
+	public static final int VERSION = 2; // The version of the format this class writes
+
+	// The kinds of records
+	public static final int REVEAL = 1; // A cell was revealed (a left click)
+	public static final int FLAG = 2; // A flag was placed (a right click)
+	public static final int UNFLAG = 3; // A flag was removed (a right click)
+	public static final int CHORD = 4; // The neighbors of a cell were revealed (a double click)
+	public static final int CHECKPOINT = 5; // A snapshot of the game
+	private static final int END = 0; // The journal was closed, which is never written
+
+	private static final int BUFFER_SIZE = 1 << 16; // The size of the buffer of the writer, in bytes
+
+	private int width; // The number of columns of the mine field (> 0)
+	private int height; // The number of rows of the mine field (> 0)
+	private int checkpointInterval; // The number of moves between checkpoints (> 0)
+	private int moves; // The number of moves recorded (>= 0)
+	private boolean generated; // Whether the mines had been placed at the last move recorded
+	private BlockingQueue<Entry> pending; // The records waiting for the writer
+	private FileChannel channel; // The file
+	private Thread writer; // The thread that writes the records
+	private volatile IOException failure; // The error that stopped the writer, or null
+
+	/**
+	 * Constructor: creates the journal file, replacing it if it exists, and starts the writer. If the mines of the
+	 * game have been placed already, or it has started, the journal begins with a checkpoint.
+	 * Input: the file, the model of the game, and how long the game has lasted in nanoseconds
+	 */
+	public Journal(Path path, Model model, long elapsedNanos) throws IOException {
+		this.width = model.getWidth();
+		this.height = model.getHeight();
+		this.checkpointInterval = 256;
+		this.pending = new LinkedBlockingQueue<Entry>();
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		this.generated = model.getIsGenerated();
+		pending.add(new Entry(MAGIC, model.getMines(), System.currentTimeMillis()));
+		if (generated || !model.getIsNew()) {
+			pending.add(new Entry(0, model, elapsedNanos));
+		}
+		writer = new Thread(this::write, "journal-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Records a move, after it has been applied to the model, and a checkpoint if one is due. If the writer
+	 * has stopped on an error, nothing is recorded and the error is thrown, so the journal can be dropped
+	 * instead of queueing records nobody writes.
+	 * Input: the kind of move (REVEAL, FLAG, UNFLAG or CHORD), the column and row of its cell, the model,
+	 * and how long the game has lasted in nanoseconds
+	 */
+	public void record(int kind, int col, int row, Model model, long elapsedNanos) throws IOException {
+		if (failure != null) {
+			throw failure;
+		}
+		pending.add(new Entry(kind, row * width + col, System.currentTimeMillis()));
+		moves++;
+		boolean placed = model.getIsGenerated() && !generated;
+		generated = model.getIsGenerated();
+		if (placed || (generated && moves % checkpointInterval == 0)) {
+			pending.add(new Entry(moves, model, elapsedNanos));
+		}
+	}
+
+	/**
+	 * Writes the remaining records, waits for them to reach the disk, and closes the file.
+	 */
+	public void close() throws IOException {
+		pending.add(new Entry(END, 0, 0));
+		try {
+			writer.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (channel.isOpen()) {
+			channel.force(false);
+			channel.close();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Encodes the records as they are queued, writing the buffer out whenever the queue is empty or the buffer
+	 * is full, until the journal is closed.
+	 */
+	private void write() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		long lastTime = 0;
+		int lastCell = 0;
+		try {
+			while (true) {
+				Entry entry = pending.take();
+				for (; entry != null; entry = pending.poll()) {
+					if (buffer.remaining() < 32) {
+						flush(buffer);
+					}
+					if (entry.kind == END) {
+						flush(buffer);
+						return;
+					}
+					else if (entry.kind == MAGIC) {
+						buffer.putInt(MAGIC);
+						buffer.put((byte) VERSION);
+						Varint.putVarLong(buffer, width);
+						Varint.putVarLong(buffer, height);
+						Varint.putVarLong(buffer, entry.cell);
+						Varint.putVarLong(buffer, entry.time);
+						lastTime = entry.time;
+					}
+					else if (entry.kind == CHECKPOINT) {
+						byte[] bytes = GameFile.toBytes(entry.snapshot, entry.cell, entry.generated,
+								entry.elapsedNanos);
+						buffer.put((byte) CHECKPOINT);
+						Varint.putVarLong(buffer, entry.move);
+						Varint.putVarLong(buffer, bytes.length);
+						flush(buffer);
+						ByteBuffer snapshot = ByteBuffer.wrap(bytes);
+						while (snapshot.hasRemaining()) {
+							channel.write(snapshot);
+						}
+					}
+					else {
+						buffer.put((byte) entry.kind);
+						Varint.putVarLong(buffer, Math.max(0, entry.time - lastTime));
+						Varint.putVarLong(buffer, Varint.zigzag(entry.cell - lastCell));
+						lastTime = entry.time;
+						lastCell = entry.cell;
+					}
+				}
+				flush(buffer);
+			}
+		}
+		catch (IOException e) {
+			failure = e;
+		}
+		catch (InterruptedException e) {
+			// The journal is being abandoned
+		}
+	}
+
+	/**
+	 * Writes out the contents of the buffer, and empties it.
+	 * Input: the buffer
+	 */
+	private void flush(ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	// Getters
+	public int getMoves() {
+		return moves;
+	}
+
+	public IOException getFailure() {
+		return failure;
+	}
+
+	// Setters
+	public void setCheckpointInterval(int checkpointInterval) {
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	/**
+	 * A record waiting for the writer.
+	 */
+	private static class Entry {
+
+		private int kind; // The kind of record, or MAGIC for the header
+		private int cell; // The number of the cell of a move, or the number of mines for the header and checkpoints
+		private long time; // The wall-clock time of a move or of the header, in milliseconds
+		private int move; // The number of moves before a checkpoint
+		private long elapsedNanos; // How long the game had lasted at a checkpoint, in nanoseconds
+		private Board snapshot; // The copy of the board of a checkpoint, or null
+		private boolean generated; // Whether the mines had been placed at a checkpoint
+
+		/**
+		 * Constructor: makes the record of a move, or the header.
+		 * Input: the kind of record, the number of the cell or of mines, and the wall-clock time
+		 */
+		private Entry(int kind, int cell, long time) {
+			this.kind = kind;
+			this.cell = cell;
+			this.time = time;
+		}
+
+		/**
+		 * Constructor: makes a checkpoint, copying the board of the model so the game can go on while the
+		 * writer encodes it.
+		 * Input: the number of moves before it, the model, and how long the game has lasted in nanoseconds
+		 */
+		private Entry(int move, Model model, long elapsedNanos) {
+			this.kind = CHECKPOINT;
+			this.cell = model.getMines();
+			this.move = move;
+			this.elapsedNanos = elapsedNanos;
+			this.snapshot = model.getBoard().copy();
+			this.generated = model.getIsGenerated();
+		}
+
+	}
+
+}
@@ -0,0 +1,234 @@
+package minesweeper;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * An instance reads a journal, and rebuilds the state of its game at any move.
+ *
+ * The moves are decoded once, when the journal is opened. Seeking to a move starts from the last checkpoint at
+ * or before it and replays only the moves after that checkpoint, so it costs at most a checkpoint interval of
+ * moves however long the game. A journal cut short, as when the game crashed, is read up to its last whole record.
+ *
+ * @author Benjamin Revard
+ */
+public class JournalReplayer {
+
+	private int width; // The number of columns of the mine field (> 0)
+	private int height; // The number of rows of the mine field (> 0)
+	private int mines; // The number of mines in the mine field (>= 0)
+	private long startTime; // The wall-clock time the journal started, in milliseconds
+	private int moves; // The number of moves in the journal (>= 0)
+	private byte[] kinds; // The kind of each move
+	private int[] cells; // The number of the cell of each move
+	private long[] times; // The wall-clock time of each move, in milliseconds
+	private int checkpoints; // The number of checkpoints (>= 0)
+	private int[] checkpointMoves; // The number of moves before each checkpoint, in increasing order
+	private ByteBuffer[] snapshots; // The snapshot of each checkpoint
+
+	/**
+	 * Constructor: reads a journal file.
+	 * Input: the file
+	 */
+	public JournalReplayer(Path path) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		try {
+			if (buffer.getInt() != Journal.MAGIC) {
+				throw new IOException("Not a journal: " + path);
+			}
+			int version = buffer.get();
+			if (version != 1 && version != Journal.VERSION) {
+				throw new IOException("Unsupported journal version: " + path);
+			}
+			width = (int) Varint.getVarLong(buffer);
+			height = version == 1 ? width : (int) Varint.getVarLong(buffer);
+			mines = (int) Varint.getVarLong(buffer);
+			startTime = Varint.getVarLong(buffer);
+		}
+		catch (BufferUnderflowException e) {
+			throw new IOException("Not a journal: " + path);
+		}
+		kinds = new byte[64];
+		cells = new int[64];
+		times = new long[64];
+		checkpointMoves = new int[4];
+		snapshots = new ByteBuffer[4];
+		readRecords(buffer);
+	}
+
+	/**
+	 * Decodes the records, stopping at the end of the file or at the first record that is cut short.
+	 * Input: the buffer holding the file, positioned after the header
+	 */
+	private void readRecords(ByteBuffer buffer) throws IOException {
+		long time = startTime;
+		int cell = 0;
+		try {
+			while (buffer.hasRemaining()) {
+				int kind = buffer.get();
+				if (kind == Journal.CHECKPOINT) {
+					int move = (int) Varint.getVarLong(buffer);
+					int size = (int) Varint.getVarLong(buffer);
+					if (size > buffer.remaining()) {
+						return;
+					}
+					addCheckpoint(move, buffer.slice(buffer.position(), size));
+					buffer.position(buffer.position() + size);
+				}
+				else if (kind >= Journal.REVEAL && kind <= Journal.CHORD) {
+					long nextTime = time + Varint.getVarLong(buffer);
+					int nextCell = cell + Varint.unzigzag(Varint.getVarLong(buffer));
+					time = nextTime;
+					cell = nextCell;
+					addMove(kind, cell, time);
+				}
+				else {
+					throw new IOException("Corrupt journal record of kind " + kind);
+				}
+			}
+		}
+		catch (BufferUnderflowException | IllegalArgumentException e) {
+			// The last record was cut short
+		}
+	}
+
+	/**
+	 * Adds a move to the arrays, growing them if needed.
+	 * Input: the kind of move, the number of its cell, and its time
+	 */
+	private void addMove(int kind, int cell, long time) {
+		if (moves == kinds.length) {
+			kinds = Arrays.copyOf(kinds, moves * 2);
+			cells = Arrays.copyOf(cells, moves * 2);
+			times = Arrays.copyOf(times, moves * 2);
+		}
+		kinds[moves] = (byte) kind;
+		cells[moves] = cell;
+		times[moves] = time;
+		moves++;
+	}
+
+	/**
+	 * Adds a checkpoint to the arrays, growing them if needed.
+	 * Input: the number of moves before it, and its snapshot
+	 */
+	private void addCheckpoint(int move, ByteBuffer snapshot) {
+		if (checkpoints == snapshots.length) {
+			checkpointMoves = Arrays.copyOf(checkpointMoves, checkpoints * 2);
+			snapshots = Arrays.copyOf(snapshots, checkpoints * 2);
+		}
+		checkpointMoves[checkpoints] = move;
+		snapshots[checkpoints] = snapshot;
+		checkpoints++;
+	}
+
+	/**
+	 * Returns a new model in the state the game was in after a number of moves.
+	 * Input: the number of moves (>= 0 and <= getMoves())
+	 */
+	public Model seek(int move) throws IOException {
+		if (move < 0 || move > moves) {
+			throw new IllegalArgumentException("No move " + move + " in a journal of " + moves + " moves");
+		}
+
+		// Start from the last checkpoint at or before the move, or from an empty mine field
+		int c = checkpoints - 1;
+		while (c >= 0 && checkpointMoves[c] > move) {
+			c--;
+		}
+		Model model;
+		int replayed;
+		if (c >= 0) {
+			model = GameFile.fromBytes(snapshots[c].duplicate()).getModel();
+			replayed = checkpointMoves[c];
+		}
+		else {
+			model = new Model(width, height, mines, new SplittableRandom(), true);
+			replayed = 0;
+		}
+
+		// Replay the moves after it
+		GameEngine engine = new GameEngine(model);
+		for (int i = replayed; i < move; i++) {
+			int col = cells[i] % width;
+			int row = cells[i] / width;
+			if (kinds[i] == Journal.REVEAL) {
+				engine.reveal(col, row);
+			}
+			else if (kinds[i] == Journal.CHORD) {
+				engine.chord(col, row);
+			}
+			else {
+				engine.toggleFlag(col, row);
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * Returns the kind of a move: REVEAL, FLAG, UNFLAG or CHORD.
+	 * Input: the index of the move (>= 0 and < getMoves())
+	 */
+	public int getKind(int i) {
+		return kinds[i];
+	}
+
+	/**
+	 * Returns the column of the cell of a move.
+	 * Input: the index of the move (>= 0 and < getMoves())
+	 */
+	public int getColumn(int i) {
+		return cells[i] % width;
+	}
+
+	/**
+	 * Returns the row of the cell of a move.
+	 * Input: the index of the move (>= 0 and < getMoves())
+	 */
+	public int getRow(int i) {
+		return cells[i] / width;
+	}
+
+	/**
+	 * Returns the wall-clock time of a move, in milliseconds.
+	 * Input: the index of the move (>= 0 and < getMoves())
+	 */
+	public long getTime(int i) {
+		return times[i];
+	}
+
+	// Getters
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getMines() {
+		return mines;
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public int getMoves() {
+		return moves;
+	}
+
+	public int getCheckpoints() {
+		return checkpoints;
+	}
+
+}
@@ -0,0 +1,268 @@
+package minesweeper;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The metrics of the click pipeline: how long each kind of player action takes from the mouse event to the
+ * repaint request, how many cells the reveals uncover, how long painting the mine field and making new mine
+ * fields take, how many actions, repaints and paints there have been, and how often a new game found the
+ * model of its mine field ready in the board supply.
+ *
+ * Metrics are off unless the system property minesweeper.metrics is true. ENABLED is read once, when the class
+ * is initialized, and is final, so where it guards the recording, the JIT compiler folds the test and drops the
+ * recording, reading the clock included, from compiled code when metrics are off.
+ * When on, every histogram is published as an MBean under "minesweeper:type=Histogram", alongside this one
+ * as "minesweeper:type=Metrics", and if the property minesweeper.metrics.dump is a number of seconds, a report
+ * is printed to the standard error stream at that interval.
+ *
+ * @author Benjamin Revard
+ */
+public class Metrics implements MetricsMBean {
+
+	public static final boolean ENABLED = Boolean.getBoolean("minesweeper.metrics"); // Whether to record metrics
+
+	public static final int RESET = 0; // The kind of action that starts a new game, besides those of Journal
+
+	private static final Metrics INSTANCE = new Metrics(); // The metrics of the application
+
+	private Histogram reveal; // The durations of reveals, in nanoseconds
+	private Histogram chord; // The durations of chords, in nanoseconds
+	private Histogram flag; // The durations of flags placed or removed, in nanoseconds
+	private Histogram reset; // The durations of resets, in nanoseconds
+	private Histogram cells; // The number of cells uncovered by each reveal or chord
+	private Histogram paint; // The durations of paints of the mine field, in nanoseconds
+	private Histogram generation; // The durations of making mine fields for new games, in nanoseconds
+	private Histogram[] histograms; // Every histogram, in the order they are reported
+	private AtomicLong actions; // The number of player actions that have ended (>= 0)
+	private AtomicLong repaints; // The number of repaints requested at the end of actions (>= 0)
+	private AtomicLong paints; // The number of paints of the mine field (>= 0)
+	private AtomicLong supplyHits; // The number of models taken from a board supply that were ready (>= 0)
+	private AtomicLong supplyMisses; // The number of models taken from a board supply that were made on the spot (>= 0)
+	private boolean started; // Whether the metrics have been published
+
+	/**
+	 * Constructor: makes empty metrics.
+	 */
+	private Metrics() {
+		reveal = new Histogram("reveal", true);
+		chord = new Histogram("chord", true);
+		flag = new Histogram("flag", true);
+		reset = new Histogram("reset", true);
+		cells = new Histogram("cells", false);
+		paint = new Histogram("paint", true);
+		generation = new Histogram("generation", true);
+		histograms = new Histogram[] { reveal, chord, flag, reset, cells, paint, generation };
+		actions = new AtomicLong();
+		repaints = new AtomicLong();
+		paints = new AtomicLong();
+		supplyHits = new AtomicLong();
+		supplyMisses = new AtomicLong();
+	}
+
+	/**
+	 * Returns the metrics of the application.
+	 */
+	public static Metrics get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Publishes the metrics through JMX, and starts printing reports if asked to. Does nothing when metrics
+	 * are off, or if they have been started already.
+	 */
+	public synchronized void start() {
+		if (!ENABLED || started) {
+			return;
+		}
+		started = true;
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(this, new ObjectName("minesweeper:type=Metrics"));
+			for (Histogram histogram : histograms) {
+				ObjectName name = new ObjectName("minesweeper:type=Histogram,name=" + histogram.getName());
+				server.registerMBean(histogram, name);
+			}
+		}
+		catch (JMException e) {
+			System.err.println("Couldn't publish the metrics: " + e.getMessage());
+		}
+		long seconds = Long.getLong("minesweeper.metrics.dump", 0);
+		if (seconds > 0) {
+			Thread dumper = new Thread(() -> dump(seconds * 1000, System.err), "metrics-dump");
+			dumper.setDaemon(true);
+			dumper.start();
+		}
+	}
+
+	/**
+	 * Prints a report at regular intervals until the thread is interrupted.
+	 * Input: the interval, in milliseconds (> 0), and the stream to print to
+	 */
+	private void dump(long interval, PrintStream out) {
+		try {
+			while (true) {
+				Thread.sleep(interval);
+				out.print(getReport());
+				out.flush();
+			}
+		}
+		catch (InterruptedException e) {
+			// The application is ending
+		}
+	}
+
+	/**
+	 * Records a player action that has ended.
+	 * Input: the kind of action (Journal.REVEAL, FLAG, UNFLAG or CHORD, or RESET), its duration in nanoseconds,
+	 * and the number of cells it uncovered
+	 */
+	public void recordAction(int kind, long nanos, int uncovered) {
+		actions.incrementAndGet();
+		if (kind == Journal.REVEAL) {
+			reveal.record(nanos);
+			cells.record(uncovered);
+		}
+		else if (kind == Journal.CHORD) {
+			chord.record(nanos);
+			cells.record(uncovered);
+		}
+		else if (kind == Journal.FLAG || kind == Journal.UNFLAG) {
+			flag.record(nanos);
+		}
+		else {
+			reset.record(nanos);
+		}
+	}
+
+	/**
+	 * Counts a repaint requested at the end of an action.
+	 */
+	public void recordRepaint() {
+		repaints.incrementAndGet();
+	}
+
+	/**
+	 * Records a paint of the mine field.
+	 * Input: its duration, in nanoseconds
+	 */
+	public void recordPaint(long nanos) {
+		paints.incrementAndGet();
+		paint.record(nanos);
+	}
+
+	/**
+	 * Records the making of a mine field for a new game.
+	 * Input: its duration, in nanoseconds
+	 */
+	public void recordGeneration(long nanos) {
+		generation.record(nanos);
+	}
+
+	/**
+	 * Counts a model taken from a board supply.
+	 * Input: whether it was ready, or had to be made on the spot
+	 */
+	public void recordSupply(boolean hit) {
+		if (hit) {
+			supplyHits.incrementAndGet();
+		}
+		else {
+			supplyMisses.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns the share of the models taken from a board supply that were ready, or 1 if none has been taken.
+	 */
+	public double getSupplyHitRate() {
+		long hits = supplyHits.get();
+		long taken = hits + supplyMisses.get();
+		return taken == 0 ? 1 : (double) hits / taken;
+	}
+
+	/**
+	 * Returns every metric as text, one line each.
+	 */
+	public String getReport() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("actions %d, repaints %d, paints %d%n",
+				getActions(), getRepaints(), getPaints()));
+		report.append(String.format("supply hits %d, misses %d, hit rate %.3f%n",
+				getSupplyHits(), getSupplyMisses(), getSupplyHitRate()));
+		for (Histogram histogram : histograms) {
+			if (histogram.getCount() > 0) {
+				report.append("  ").append(histogram).append(System.lineSeparator());
+			}
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Forgets every value recorded.
+	 */
+	public void reset() {
+		for (Histogram histogram : histograms) {
+			histogram.reset();
+		}
+		actions.set(0);
+		repaints.set(0);
+		paints.set(0);
+		supplyHits.set(0);
+		supplyMisses.set(0);
+	}
+
+	// Getters
+	public long getActions() {
+		return actions.get();
+	}
+
+	public long getRepaints() {
+		return repaints.get();
+	}
+
+	public long getPaints() {
+		return paints.get();
+	}
+
+	public long getSupplyHits() {
+		return supplyHits.get();
+	}
+
+	public long getSupplyMisses() {
+		return supplyMisses.get();
+	}
+
+	public Histogram getReveal() {
+		return reveal;
+	}
+
+	public Histogram getChord() {
+		return chord;
+	}
+
+	public Histogram getFlag() {
+		return flag;
+	}
+
+	public Histogram getReset() {
+		return reset;
+	}
+
+	public Histogram getCells() {
+		return cells;
+	}
+
+	public Histogram getPaint() {
+		return paint;
+	}
+
+	public Histogram getGeneration() {
+		return generation;
+	}
+
+}
@@ -0,0 +1,51 @@
+package minesweeper;
+
+/**
+ * The management interface of the metrics of the game, through which JMX clients such as JConsole read them.
+ * Each histogram is registered as an MBean of its own.
+ *
+ * @author Benjamin Revard
+ */
+public interface MetricsMBean {
+
+	/**
+	 * Returns the number of player actions that have ended.
+	 */
+	long getActions();
+
+	/**
+	 * Returns the number of repaints requested at the end of those actions.
+	 */
+	long getRepaints();
+
+	/**
+	 * Returns the number of times the mine field has been painted.
+	 */
+	long getPaints();
+
+	/**
+	 * Returns the number of models of new games taken from a board supply that were ready.
+	 */
+	long getSupplyHits();
+
+	/**
+	 * Returns the number of models of new games taken from a board supply that had to be made on the spot.
+	 */
+	long getSupplyMisses();
+
+	/**
+	 * Returns the share of the models taken from a board supply that were ready, or 1 if none has been taken.
+	 */
+	double getSupplyHitRate();
+
+	/**
+	 * Returns every metric as text, one line each.
+	 */
+	String getReport();
+
+	/**
+	 * Forgets every value recorded.
+	 */
+	void reset();
+
+}
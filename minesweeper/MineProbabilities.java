@@ -0,0 +1,80 @@
+package minesweeper;
+
+/**
+ * The chance of being a mine of each unknown cell of a model, as worked out by a probability engine.
+ * The cells next to the frontier each have their own probability; the other unknown cells (the interior)
+ * all share one. Cells the solver already knows are safe or mines aren't included.
+ *
+ * @author Benjamin Revard
+ */
+public class MineProbabilities {
+
+	private int[] cells; // The board indices of the unknown cells next to the frontier
+	private double[] probabilities; // The probability of each of those cells being a mine (>= 0 and <= 1)
+	private int interiorCells; // The number of unknown cells away from the frontier (>= 0)
+	private double interiorProbability; // The probability of each of those cells being a mine (>= 0 and <= 1)
+	private int safestCell; // The board index of an unknown cell with the lowest probability, or -1 if there is none
+	private int components; // The number of independent groups the frontier cells were split into (>= 0)
+	private boolean approximate; // Whether some probabilities were estimated by sampling rather than counted exactly
+
+	/**
+	 * Constructor: gathers the results of a probability engine.
+	 * Input: the frontier cells and their probabilities, the number of interior cells and their probability,
+	 * the safest cell, the number of groups, and whether the results are estimates
+	 */
+	MineProbabilities(int[] cells, double[] probabilities, int interiorCells, double interiorProbability,
+			int safestCell, int components, boolean approximate) {
+		this.cells = cells;
+		this.probabilities = probabilities;
+		this.interiorCells = interiorCells;
+		this.interiorProbability = interiorProbability;
+		this.safestCell = safestCell;
+		this.components = components;
+		this.approximate = approximate;
+	}
+
+	/**
+	 * Returns the number of frontier cells with their own probability.
+	 */
+	public int size() {
+		return cells.length;
+	}
+
+	/**
+	 * Returns the board index of the i-th frontier cell.
+	 * Input: the position of the cell (>= 0 and < size)
+	 */
+	public int getCell(int i) {
+		return cells[i];
+	}
+
+	/**
+	 * Returns the probability of the i-th frontier cell being a mine.
+	 * Input: the position of the cell (>= 0 and < size)
+	 */
+	public double getProbability(int i) {
+		return probabilities[i];
+	}
+
+	// Getters
+	public int getInteriorCells() {
+		return interiorCells;
+	}
+
+	public double getInteriorProbability() {
+		return interiorProbability;
+	}
+
+	public int getSafestCell() {
+		return safestCell;
+	}
+
+	public int getComponents() {
+		return components;
+	}
+
+	public boolean getIsApproximate() {
+		return approximate;
+	}
+
+}
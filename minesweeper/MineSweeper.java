@@ -1,4 +1,8 @@
 package minesweeper;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
 import javax.swing.*;
 
 /**
@@ -11,22 +15,94 @@ import javax.swing.*;
  */
 public class MineSweeper {
 	
-	private static int length = 20; // The length of one side of the mine field (> 0)
-	private static int mines = 50; // The number of mines in the mine field (>= 0)
+	private static String preset = "classic"; // The preset of the mine field, unless another is asked for
+	private static double density = 0.16; // The share of mines in an endless mine field, unless another is asked for
 	
 	/**
 	 * Creates the model, view and controller objects,
-	 * and starts the application
+	 * and starts the application. With the argument --no-guess, every game
+	 * is played on a mine field that can be solved without guessing. With
+	 * --journal followed by a directory, every game is recorded there. With
+	 * --board followed by a board ID, the first game is played on that mine field.
+	 * With --preset followed by the name of a preset or a size such as 30x16/99,
+	 * games are played on mine fields of that size, and with --presets followed
+	 * by a file, the presets of that file can be named too. With --endless, the
+	 * game is played on an endless mine field instead, whose share of mines can
+	 * be given with --density.
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
+		
+		// read the arguments
+		String size = preset;
+		Path presetFile = null;
+		boolean noGuess = false;
+		Path journalDirectory = null;
+		BoardId boardId = null;
+		boolean endless = false;
+		double endlessDensity = density;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--no-guess")) {
+				noGuess = true;
+			}
+			else if (args[i].equals("--journal") && i + 1 < args.length) {
+				journalDirectory = Paths.get(args[++i]);
+			}
+			else if (args[i].equals("--board") && i + 1 < args.length) {
+				boardId = BoardId.parse(args[++i]);
+			}
+			else if (args[i].equals("--preset") && i + 1 < args.length) {
+				size = args[++i];
+			}
+			else if (args[i].equals("--presets") && i + 1 < args.length) {
+				presetFile = Paths.get(args[++i]);
+			}
+			else if (args[i].equals("--endless")) {
+				endless = true;
+			}
+			else if (args[i].equals("--density") && i + 1 < args.length) {
+				endlessDensity = Double.parseDouble(args[++i]);
+			}
+		}
+		
+		// publish the metrics, if they are on
+		Metrics.get().start();
+		
+		// an endless game needs none of the rest
+		if (endless) {
+			EndlessModel model = new EndlessModel(new SplittableRandom().nextLong(), endlessDensity);
+			View view = new View(model, 0);
+			view.registerListener(new EndlessController(model, view));
+			view.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+			view.setSize(800, 600);
+			view.setVisible(true);
+			return;
+		}
+		Preset chosen = Preset.find(presetFile != null ? Preset.load(presetFile) : Preset.getStandard(), size);
+		int width = chosen.getWidth();
+		int height = chosen.getHeight();
+		int mines = chosen.getMines();
 		
 		// initialize the model, view and controller
-		Model model = new Model(length, mines);
-		View view = new View(length, mines);
+		BoardSupply supply;
+		if (noGuess) {
+			supply = new BoardSupply(new NoGuessGenerator(width, height, mines), 8);
+			supply.start(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+		}
+		else {
+			supply = new BoardSupply(new RandomBoardSource(width, height, mines, true), 2);
+			supply.start(1);
+		}
+		Model model = supply.take();
+		View view = new View(model);
 		Controller controller = new Controller(model, view);
+		controller.setSupply(supply);
+		controller.setJournalDirectory(journalDirectory);
 		
 		// register the controller as a listener to the view
 		view.registerListener(controller);
+		if (boardId != null) {
+			controller.openBoard(boardId);
+		}
 		
 		// start it
 		view.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
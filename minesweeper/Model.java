@@ -1,5 +1,8 @@
 package minesweeper;
 import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
 
 /**
  * This is the model of the MVC implementation of the mine sweeper game. 
@@ -7,216 +10,482 @@ import java.util.ArrayList;
  * 
  * @author Benjamin Revard
  */
-public class Model {
+public class Model implements CellSource {
 	
-	private int length; // The length of one side of the mine field (> 0)
+	private int width; // The number of columns of the mine field (> 0)
+	private int height; // The number of rows of the mine field (> 0)
 	private int mines; // The number of mines in the mine field (>= 0)
 	private int flags; // The number of flags placed by the player (>= 0)
+	private int hidden; // The number of cells that haven't been revealed (>= 0)
+	private int hiddenSafe; // The number of cells that are not mines and haven't been revealed (>= 0)
+	private int flaggedMines; // The number of mines that have been flagged (>= 0 and <= mines)
+	private boolean lost; // Whether a mine has been revealed
 	private boolean isNew; // Indicates whether or not the model has just been created
-	private Cell[][] cells; // The cells that represent the mine field
+	private boolean isGenerated; // Whether the mines have been placed
+	private boolean safeFirstClick; // Whether placing the mines waits for the first reveal
+	private RandomGenerator random; // The random generator used to place the mines
+	private SeededRandom seeded; // The generator of a seeded model, which is also random, or null
+	private long seed; // The seed the mines of this game were placed from, if the model is seeded
+	private int firstClick; // The number of the cell the mines were placed around, or -1
+	private Board board; // The packed cells that represent the mine field
+	private RevealBatch revealed; // The cells revealed by the last reveal, reused between reveals
+	private int[] excluded; // The numbers of the cells kept clear of mines, reused between games
+	private int[] placed; // The board indices of the mines, reused between games
 	
 	/**
-	 * Constructor: creates the mine field.
+	 * Constructor: creates a square mine field, using a new random generator to place the mines.
 	 * Input: the length of one side of the mine field, the number of mines in the mine field
 	 */
 	public Model(int length, int mines) {
+		this(length, mines, new SplittableRandom(), false);
+	}
+	
+	/**
+	 * Constructor: creates a square mine field.
+	 * Input: the length of one side of the mine field, the number of mines in the mine field,
+	 * and the random generator used to place the mines
+	 */
+	public Model(int length, int mines, RandomGenerator random) {
+		this(length, mines, random, false);
+	}
+	
+	/**
+	 * Constructor: creates a square mine field.
+	 * Input: the length of one side of the mine field, the number of mines in the mine field,
+	 * the random generator used to place the mines, and whether the first click is safe
+	 */
+	public Model(int length, int mines, RandomGenerator random, boolean safeFirstClick) {
+		this(length, length, mines, random, safeFirstClick);
+	}
+	
+	/**
+	 * Constructor: creates a seeded mine field, whose mines are placed from the seed alone, so that the
+	 * same seed and first click always give the same mine field. Later games draw their seeds from this one.
+	 * Input: the number of columns and the number of rows of the mine field, the number of mines in it,
+	 * the seed, and whether the first click is safe
+	 */
+	public Model(int width, int height, int mines, long seed, boolean safeFirstClick) {
+		this(width, height, mines, new SeededRandom(seed), safeFirstClick);
+	}
+	
+	/**
+	 * Constructor: creates the mine field. If the first click is to be safe, the mines aren't placed
+	 * until the first cell is revealed, and then they are kept away from that cell and its neighbors.
+	 * Input: the number of columns and the number of rows of the mine field, the number of mines in it,
+	 * the random generator used to place the mines, and whether the first click is safe
+	 */
+	public Model(int width, int height, int mines, RandomGenerator random, boolean safeFirstClick) {
 		
 		// Initialize the class variables
-		this.length = length;
+		this.width = width;
+		this.height = height;
 		this.mines = mines;
+		this.random = random;
+		this.safeFirstClick = safeFirstClick;
+		board = new Board(width, height);
+		revealed = new RevealBatch(board);
+		excluded = new int[9];
+		
+		if (random instanceof SeededRandom) {
+			seeded = (SeededRandom) random;
+			reset(seeded.getSeed());
+		}
+		else {
+			clear();
+		}
+	}
+	
+	/**
+	 * Clears the mine field for a new game. Unless the first click is safe, new mines are placed
+	 * straight away; otherwise placing them is left to the first reveal. A seeded model draws the
+	 * seed of the new game from its generator.
+	 */
+	public void reset() {
+		if (seeded != null) {
+			reset(seeded.nextLong());
+		}
+		else {
+			clear();
+		}
+	}
+	
+	/**
+	 * Clears the mine field for a new game whose mines are placed from this seed. The model is seeded
+	 * from then on.
+	 * Input: the seed
+	 */
+	public void reset(long seed) {
+		if (seeded == null) {
+			seeded = new SeededRandom(seed);
+			random = seeded;
+		}
+		else {
+			seeded.setSeed(seed);
+		}
+		this.seed = seed;
+		clear();
+	}
+	
+	/**
+	 * Clears the mine field, and places new mines unless the first click is safe.
+	 */
+	private void clear() {
+		board.clear();
 		flags = 0;
+		hidden = width * height;
+		hiddenSafe = width * height - mines;
+		flaggedMines = 0;
+		lost = false;
 		isNew = true;
-		cells = new Cell[length][length];
-		for (int i = 0; i < length; i++) {
-			for (int j = 0; j < length; j++) {
-				cells[i][j] = new Cell(i, j);
+		isGenerated = false;
+		firstClick = -1;
+		if (!safeFirstClick) {
+			placeMines(0);
+		}
+	}
+	
+	/**
+	 * Starts the game on this mine field again: every cell is hidden and unflagged, but the mines stay
+	 * where they are.
+	 */
+	public void restart() {
+		board.clearProgress();
+		flags = 0;
+		hidden = width * height;
+		hiddenSafe = width * height - mines;
+		flaggedMines = 0;
+		lost = false;
+		isNew = true;
+	}
+	
+	/**
+	 * Counts the cells again after the board has been filled in directly, as when a saved game is loaded:
+	 * the mines must have been added with their neighbor counts, and the revealed and flagged cells marked.
+	 * Returns the number of mines found on the board.
+	 * Input: whether the mines have been placed
+	 */
+	int restore(boolean generated) {
+		int found = 0;
+		flags = 0;
+		hidden = 0;
+		hiddenSafe = 0;
+		flaggedMines = 0;
+		lost = false;
+		for (int row = 0; row < height; row++) {
+			for (int index = board.index(0, row); index < board.index(width, row); index++) {
+				boolean mine = board.isMine(index);
+				if (mine) {
+					board.setValue(index, 9);
+					found++;
+				}
+				if (!board.isRevealed(index)) {
+					hidden++;
+					if (!mine) {
+						hiddenSafe++;
+					}
+				}
+				else if (mine) {
+					lost = true;
+				}
+				if (board.isFlagged(index)) {
+					flags++;
+					if (mine) {
+						flaggedMines++;
+					}
+				}
 			}
 		}
-				
-		// Randomly place the mines
+		
+		// Without mines every hidden cell looks safe, so count the mines still to be placed
+		if (!generated) {
+			hiddenSafe = hidden - mines;
+		}
+		isGenerated = generated;
+		isNew = hidden == width * height && flags == 0;
+		seeded = null;
+		return found;
+	}
+	
+	/**
+	 * Places the mines around the first cell to be revealed, keeping them off that cell and its
+	 * neighbors. If there are too many mines for that, only the cell itself is kept clear.
+	 * Input: the board index of the first cell to be revealed
+	 */
+	private void placeMinesAround(int index) {
+		int col = board.column(index);
+		int row = board.row(index);
+		firstClick = row * width + col;
+		
+		// Number the cells to keep clear, in increasing order
 		int count = 0;
-		while (count < mines) {
-			int randCol = getRandomInt(0, length);
-			int randRow = getRandomInt(0, length);
-			if (cells[randCol][randRow].getIsMine()) {
-				continue;
+		for (int r = row - 1; r <= row + 1; r++) {
+			for (int c = col - 1; c <= col + 1; c++) {
+				if (c >= 0 && c < width && r >= 0 && r < height) {
+					excluded[count++] = r * width + c;
+				}
 			}
-			else {
-				cells[randCol][randRow].setIsMine(true);
-				cells[randCol][randRow].setValue(9);
-				count++;
+		}
+		
+		if (width * height - count >= mines) {
+			placeMines(count);
+		}
+		else if (width * height - 1 >= mines) {
+			excluded[0] = row * width + col;
+			placeMines(1);
+		}
+		else {
+			placeMines(0);
+		}
+	}
+	
+	/**
+	 * Randomly places the mines, and sets the values of the cells around them.
+	 * The mines are chosen with Floyd's sampling algorithm over the numbers of the cells that aren't
+	 * excluded, which takes one random number per mine and never retries, however dense the field is.
+	 * Input: the number of cells to keep clear of mines, whose numbers are at the start of excluded
+	 * in increasing order
+	 */
+	private void placeMines(int count) {
+		int size = width * height - count;
+		if (placed == null) {
+			placed = new int[mines];
+		}
+		for (int i = 0; i < mines; i++) {
+			int j = size - mines + i;
+			int index = cellIndex(skip(random.nextInt(j + 1), count));
+			if (board.isMine(index)) {
+				index = cellIndex(skip(j, count));
 			}
-		} 
+			board.addMine(index);
+			placed[i] = index;
+		}
 		
-		// Update the values of the non-mine cells.
-		for (int a = 0; a < length; a++) {
-			for (int b = 0; b < length; b++) {
-				if (!cells[a][b].getIsMine()) {
-					cells[a][b].setValue(getNumMineNeighbors(a, b));
-				}
+		// The mines themselves have the value 9, and flags placed before the mines count if they hit one
+		for (int index : placed) {
+			board.setValue(index, 9);
+			if (board.isFlagged(index)) {
+				flaggedMines++;
+			}
+		}
+		isGenerated = true;
+	}
+	
+	/**
+	 * Maps a number between 0 and the number of cells that aren't excluded onto the number of
+	 * a cell that isn't excluded, keeping the order.
+	 * Input: the number to map, and the number of excluded cells
+	 */
+	private int skip(int number, int count) {
+		for (int i = 0; i < count; i++) {
+			if (number >= excluded[i]) {
+				number++;
 			}
 		}
+		return number;
+	}
+	
+	/**
+	 * Returns the board index of a cell from its number, counting row by row from the top left.
+	 * Input: the number of the cell (>= 0 and < width * height)
+	 */
+	private int cellIndex(int number) {
+		return board.index(number % width, number / width);
 	}
 	
 	/**
-	 * Returns a random integer between a and b.
-	 * Input: integers a and b
+	 * Calls the action with the board index of every neighboring mine field cell.
+	 * Nothing is allocated per call; use getBoard() to decode the indices.
+	 * Input: the column and row of the cell to investigate, and the action to take for each neighbor
 	 */
-	private int getRandomInt(int a, int b) {
-		return a + (int)(Math.random()*((b - a))); 
+	public void forEachNeighbor(int col, int row, IntConsumer action) {
+		board.forEachNeighbor(board.index(col, row), action);
 	}
 	
 	/**
 	 * Returns an ArrayList of neighboring mine field cells.
+	 * This is kept for compatibility; prefer forEachNeighbor, which does not allocate.
 	 * Input: the column and row of the cell to investigate
 	 */
 	public ArrayList<Cell> getNeighbors(int col, int row) {
-		
-		ArrayList<Cell> neighbors = new ArrayList<Cell>();
-		
-		if (col == 0 && row == 0) {
-			neighbors.add(cells[col][row + 1]);
-			neighbors.add(cells[col + 1][row + 1]);
-			neighbors.add(cells[col + 1][row]);
-		}
-		else if (col > 0 && col < length - 1 && row == 0) {
-			neighbors.add(cells[col - 1][row]);
-			neighbors.add(cells[col - 1][row + 1]);
-			neighbors.add(cells[col][row + 1]);
-			neighbors.add(cells[col + 1][row + 1]);
-			neighbors.add(cells[col + 1][row]);
-		}
-		else if (col == length - 1 && row == 0) {
-			neighbors.add(cells[col - 1][row]);
-			neighbors.add(cells[col - 1][row + 1]);
-			neighbors.add(cells[col][row + 1]);
-		}
-		else if (col == length -1 && row > 0 && row < length -1) {
-			neighbors.add(cells[col][row -1]);
-			neighbors.add(cells[col - 1][row - 1]);
-			neighbors.add(cells[col - 1][row]);
-			neighbors.add(cells[col - 1][row + 1]);
-			neighbors.add(cells[col][row + 1]);
-		}
-		else if (col == length - 1 && row == length -1) {
-			neighbors.add(cells[col][row - 1]);
-			neighbors.add(cells[col - 1][row - 1]);
-			neighbors.add(cells[col - 1][row]);
-		}
-		else if (col > 0 && col < length - 1 && row == length - 1) {
-			neighbors.add(cells[col + 1][row]);
-			neighbors.add(cells[col + 1][row - 1]);
-			neighbors.add(cells[col][row - 1]);
-			neighbors.add(cells[col - 1][row - 1]);
-			neighbors.add(cells[col - 1][row]);
-		}
-		else if (col ==  0 && row == length - 1) {
-			neighbors.add(cells[col + 1][row]);
-			neighbors.add(cells[col + 1][row - 1]);
-			neighbors.add(cells[col][row - 1]);
-		}
-		else if (col == 0 && row < length - 1 && row > 0) {
-			neighbors.add(cells[col][row + 1]);
-			neighbors.add(cells[col + 1][row + 1]);
-			neighbors.add(cells[col + 1][row]);
-			neighbors.add(cells[col + 1][row - 1]);
-			neighbors.add(cells[col][row - 1]);
-		}
-		else {
-			neighbors.add(cells[col - 1][row - 1]);
-			neighbors.add(cells[col][row - 1]);
-			neighbors.add(cells[col + 1][row - 1]);
-			neighbors.add(cells[col + 1][row]);
-			neighbors.add(cells[col + 1][row + 1]);
-			neighbors.add(cells[col][row + 1]);
-			neighbors.add(cells[col - 1][row + 1]);
-			neighbors.add(cells[col - 1][row]);
-		}
+		ArrayList<Cell> neighbors = new ArrayList<Cell>(8);
+		board.forEachNeighbor(board.index(col, row), i -> neighbors.add(new Cell(board, i)));
 		return neighbors;
 	}
 	
 	/**
-	 * Returns the number of neighboring cells that are mines.
+	 * Returns the number of neighboring cells that have been right clicked.
 	 * Input: the column and row of the cell to investigate
 	 */
-	private int getNumMineNeighbors(int col, int row) {
-		
-		int numMines = 0;
-		ArrayList<Cell> neighbors = getNeighbors(col, row);
-		
-		for (Cell cell : neighbors) {
-			if (cell.getIsMine()) {
-				numMines++;
+	public int getNumFlaggedNeighbors(int col, int row) {
+		return board.countNeighbors(board.index(col, row), Board.FLAGGED, Board.FLAGGED);
+	}
+	
+	/**
+	 * Returns the number of neighboring cells that are mines and have been neither
+	 * left clicked nor right clicked.
+	 * Input: the column and row of the cell to investigate
+	 */
+	public int getNumHiddenMineNeighbors(int col, int row) {
+		int mask = Board.MINE | Board.REVEALED | Board.FLAGGED;
+		return board.countNeighbors(board.index(col, row), mask, Board.MINE);
+	}
+	
+	/**
+	 * Reveals this cell if it is neither revealed nor flagged. If it has no neighboring mines,
+	 * its neighbors are revealed too, flooding outwards until numbered cells are reached.
+	 * If the mines haven't been placed yet, they are placed first, away from this cell.
+	 * Returns the newly revealed cells; the batch is reused by the next reveal.
+	 * Input: the column and row of the cell to reveal
+	 */
+	public RevealBatch reveal(int col, int row) {
+		int index = board.index(col, row);
+		if (!isGenerated) {
+			placeMinesAround(index);
+		}
+		revealed.clear();
+		board.reveal(index, revealed);
+		board.flood(revealed, 0);
+		countRevealed();
+		return revealed;
+	}
+	
+	/**
+	 * Reveals every neighbor of this cell that is neither revealed nor flagged, flooding outwards
+	 * from any of them that have no neighboring mines. This is what a double click does.
+	 * Returns the newly revealed cells; the batch is reused by the next reveal.
+	 * Input: the column and row of the cell whose neighbors to reveal
+	 */
+	public RevealBatch revealNeighbors(int col, int row) {
+		revealed.clear();
+		board.revealNeighbors(board.index(col, row), revealed);
+		board.flood(revealed, 0);
+		countRevealed();
+		return revealed;
+	}
+	
+	/**
+	 * Reveals every cell in the mine field, which is what happens when the player loses.
+	 */
+	public void revealAll() {
+		for (int i = 0; i < board.size(); i++) {
+			if (!board.isBorder(i)) {
+				board.setRevealed(i, true);
 			}
 		}
-		return numMines;
+		hidden = 0;
+		hiddenSafe = 0;
+		lost = mines > 0;
 	}
 	
 	/**
-	 * Returns the number of neighboring cells that have been right clicked.
-	 * Input: the column and row of the cell to investigate
-	 * @return
+	 * Updates the counters for the cells of the last reveal.
 	 */
-	public int getNumFlaggedNeighbors(int col, int row) {
-		int numFlags = 0;
-		ArrayList<Cell> neighbors = getNeighbors(col, row);
-
-		for (Cell cell : neighbors) {
-			if (cell.getRightClicked()) {
-				numFlags++;
+	private void countRevealed() {
+		hidden -= revealed.size();
+		for (int i = 0; i < revealed.size(); i++) {
+			if (board.isMine(revealed.get(i))) {
+				lost = true;
+			}
+			else {
+				hiddenSafe--;
 			}
 		}
-		return numFlags;
 	}
 	
 	/**
-	 * Increments the number of flags.
-	 * Input: the amount by which to increment the number of flags
-	 * @return
+	 * Places a flag on this cell if it has none, or removes the flag if it has one. Cells that
+	 * have been revealed can't be flagged. Returns whether the cell is flagged afterwards.
+	 * Input: the column and row of the cell
 	 */
-	public void incrementFlags(int incr) {
+	public boolean toggleFlag(int col, int row) {
+		int index = board.index(col, row);
+		if (board.isRevealed(index)) {
+			return false;
+		}
+		int incr = board.isFlagged(index) ? -1 : 1;
+		board.setFlagged(index, incr > 0);
 		flags = flags + incr;
+		if (board.isMine(index)) {
+			flaggedMines = flaggedMines + incr;
+		}
+		return incr > 0;
 	}
 	
 	/**
-	 * Checks if the player has won the game.
+	 * Checks if the player has won the game, which is when every mine is flagged and
+	 * every other cell is revealed.
 	 */
 	public boolean hasWon() {
-		int length = getLength();
-		for (int i = 0; i < length; i++) {
-			for (int j = 0; j < length; j++) {
-				Cell cell = getCells()[i][j];
-				if ( !( (cell.getIsMine() && cell.getRightClicked()) || (!cell.getIsMine() && cell.getLeftClicked()) ) ) {
-					return false;
-				}
-			}
-		}
-		return true;
+		return hiddenSafe == 0 && flaggedMines == mines;
 	}
 	
 	/**
 	 * Checks if the player has lost the game.
 	 */
 	public boolean hasLost() {
-		int length = getLength();
-		for (int i = 0; i < length; i++) {
-			for (int j = 0; j < length; j++) {
-				Cell cell = getCells()[i][j];
-				if ( cell.getIsMine() && cell.getLeftClicked() ) {
-					return true;
-				}
+		return lost;
+	}
+	
+	/**
+	 * Copies a run of cells of one row, packed as in Board. Cells outside the mine field are copied as
+	 * border cells.
+	 * Input: the column of the first cell and its row, the number of cells, and the array to copy them to
+	 */
+	public void copyRow(int col, int row, int count, byte[] into) {
+		board.copyRow(col, row, count, into);
+	}
+	
+	/**
+	 * Returns a view of the cell at this column and row. The view is created on demand
+	 * and reads straight from the packed board.
+	 * Input: the column and row of the cell
+	 */
+	public Cell getCell(int col, int row) {
+		return new Cell(board, board.index(col, row));
+	}
+	
+	/**
+	 * Returns views of every cell in the mine field, indexed by column and then row.
+	 * This creates one view per cell, so prefer getCell for single lookups.
+	 */
+	public Cell[][] getCells() {
+		Cell[][] cells = new Cell[width][height];
+		for (int i = 0; i < width; i++) {
+			for (int j = 0; j < height; j++) {
+				cells[i][j] = getCell(i, j);
 			}
 		}
-		return false;
+		return cells;
+	}
+	
+	/**
+	 * Returns the ID of this mine field, from which it can be made again, or null if it has none:
+	 * when the model isn't seeded (a loaded game, say), or when the first click is safe and hasn't happened.
+	 */
+	public BoardId getBoardId() {
+		if (seeded == null || (safeFirstClick && !isGenerated)) {
+			return null;
+		}
+		int startCol = safeFirstClick ? firstClick % width : -1;
+		int startRow = safeFirstClick ? firstClick / width : -1;
+		return new BoardId(width, height, mines, seed, safeFirstClick, startCol, startRow);
 	}
 	
 	// Getters
-	public Cell[][] getCells() {
-		return cells;
+	public Board getBoard() {
+		return board;
 	}
 	
-	public int getLength() {
-		return length;
+	public int getWidth() {
+		return width;
+	}
+	
+	public int getHeight() {
+		return height;
+	}
+	
+	public boolean getIsBounded() {
+		return true;
 	}
 	
 	public int getMines() {
@@ -227,10 +496,30 @@ public class Model {
 		return flags;
 	}
 	
+	public int getHidden() {
+		return hidden;
+	}
+	
 	public boolean getIsNew() {
 		return isNew;
 	}
 	
+	public boolean getIsGenerated() {
+		return isGenerated;
+	}
+	
+	public boolean getIsSafeFirstClick() {
+		return safeFirstClick;
+	}
+	
+	public boolean getIsSeeded() {
+		return seeded != null;
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+	
 	// Setters
 	public void setIsNew(boolean status) {
 		isNew = status;
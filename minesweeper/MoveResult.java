@@ -0,0 +1,54 @@
+package minesweeper;
+
+/**
+ * An instance is the outcome of one move on the game engine: the cells it revealed,
+ * whether it placed or removed a flag, and the state of the game afterwards.
+ * An engine reuses its result for every move, so the contents are only valid until
+ * the next move on the same engine.
+ *
+ * @author Benjamin Revard
+ */
+public class MoveResult {
+
+	private GameStatus status; // The state of the game after the move
+	private RevealBatch revealed; // The cells the move revealed (empty if none)
+	private boolean revealedAll; // Whether the move revealed the whole mine field, which happens on a loss
+	private int flagChange; // 1 if the move placed a flag, -1 if it removed one, 0 otherwise
+
+	/**
+	 * Constructor: makes an empty result.
+	 */
+	MoveResult() {
+		status = GameStatus.CONTINUE;
+	}
+
+	/**
+	 * Fills in the result of a move.
+	 * Input: the state of the game, the revealed cells, whether every cell was revealed,
+	 * and the change in the number of flags
+	 */
+	void set(GameStatus status, RevealBatch revealed, boolean revealedAll, int flagChange) {
+		this.status = status;
+		this.revealed = revealed;
+		this.revealedAll = revealedAll;
+		this.flagChange = flagChange;
+	}
+
+	// Getters
+	public GameStatus getStatus() {
+		return status;
+	}
+
+	public RevealBatch getRevealed() {
+		return revealed;
+	}
+
+	public boolean getRevealedAll() {
+		return revealedAll;
+	}
+
+	public int getFlagChange() {
+		return flagChange;
+	}
+
+}
@@ -0,0 +1,114 @@
+package minesweeper;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A source of mine fields that can be solved without guessing, for tournament games.
+ *
+ * It places mines at random, reveals a fixed start cell (the center, whose neighbors are kept clear of mines),
+ * and lets the solver play from there. A mine field is kept only if the solver reveals every safe cell without
+ * ever running out of certain moves, and it is handed out with its opening already revealed. Trying mine fields
+ * takes a while, so the generator is meant to run inside a board supply, whose threads keep a few ready.
+ * Too many mines leave hardly any field the solver can clear, so it gives up after MAX_ATTEMPTS fields.
+ *
+ * @author Benjamin Revard
+ */
+public class NoGuessGenerator implements BoardSource {
+
+	static final int MAX_ATTEMPTS = 100000; // The number of mine fields tried before giving up on a size
+
+	private int width; // The number of columns of the mine fields (> 0)
+	private int height; // The number of rows of the mine fields (> 0)
+	private int mines; // The number of mines in the mine fields (>= 0)
+	private int startCol; // The column of the cell every game starts from
+	private int startRow; // The row of the cell every game starts from
+	private AtomicLong candidates; // The number of mine fields tried (>= 0)
+	private AtomicLong accepted; // The number of mine fields kept (>= 0)
+
+	/**
+	 * Constructor: makes a generator of mine fields of this size.
+	 * Input: the number of columns and the number of rows of the mine fields, and the number of mines in them
+	 */
+	public NoGuessGenerator(int width, int height, int mines) {
+		this.width = width;
+		this.height = height;
+		this.mines = mines;
+		this.startCol = width / 2;
+		this.startRow = height / 2;
+		this.candidates = new AtomicLong();
+		this.accepted = new AtomicLong();
+	}
+
+	/**
+	 * Makes the model of a new game that can be solved without guessing, with its opening revealed.
+	 * Input: the seed of the first mine field to try
+	 */
+	public Model create(long seed) {
+		Model model = new Model(width, height, mines, seed, true);
+		prepare(model, seed);
+		return model;
+	}
+
+	/**
+	 * Tries new mine fields on a model until one can be solved without guessing, and reveals its opening.
+	 * The first is placed from the seed, and each of the others from a seed drawn by the model, so the
+	 * board ID of the model afterwards is that of the mine field kept.
+	 * Input: a model this generator created, and the seed of the first mine field to try
+	 * Throws IllegalArgumentException if none of MAX_ATTEMPTS mine fields can be solved without guessing
+	 */
+	public void prepare(Model model, long seed) {
+		GameEngine engine = new GameEngine(model);
+		Solver solver = new Solver(model);
+		engine.setSolver(solver);
+		model.reset(seed);
+		solver.reset();
+		for (int attempts = 1; !isSolvable(model, engine, solver); attempts++) {
+			if (attempts == MAX_ATTEMPTS) {
+				throw new IllegalArgumentException("No mine field of " + width + "x" + height + " with " + mines
+						+ " mines could be solved without guessing in " + MAX_ATTEMPTS + " tries");
+			}
+			model.reset();
+			solver.reset();
+		}
+		model.restart();
+		model.reveal(startCol, startRow);
+		accepted.incrementAndGet();
+	}
+
+	/**
+	 * Plays a new mine field from the start cell with only the moves the solver is certain of, and checks
+	 * that this reveals every safe cell.
+	 * Input: the model of a new game, and an engine and a solver for it
+	 */
+	private boolean isSolvable(Model model, GameEngine engine, Solver solver) {
+		candidates.incrementAndGet();
+		Board board = model.getBoard();
+		engine.reveal(startCol, startRow);
+		for (int index = solver.pollSafeMove(); index >= 0; index = solver.pollSafeMove()) {
+			engine.reveal(board.column(index), board.row(index));
+		}
+		return !model.hasLost() && model.getHidden() == mines;
+	}
+
+	// Getters
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getMines() {
+		return mines;
+	}
+
+	public long getCandidates() {
+		return candidates.get();
+	}
+
+	public long getAccepted() {
+		return accepted.get();
+	}
+
+}
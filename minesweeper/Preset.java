@@ -0,0 +1,138 @@
+package minesweeper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A named size of mine field and number of mines, such as the standard expert field of 30 by 16 cells with
+ * 99 mines.
+ *
+ * Presets are written as columns x rows / mines, as in "30x16/99". Besides the standard ones, presets can be
+ * read from a file of properties, one per line, such as "stress = 1000x300/45000"; a preset in the file
+ * replaces a standard one of the same name.
+ *
+ * @author Benjamin Revard
+ */
+public class Preset {
+
+	private String name; // The name of the preset
+	private int width; // The number of columns of the mine field (> 0)
+	private int height; // The number of rows of the mine field (> 0)
+	private int mines; // The number of mines in the mine field (>= 0)
+
+	/**
+	 * Constructor: makes a preset.
+	 * Input: the name, the number of columns and the number of rows of the mine field, and the number of mines
+	 */
+	public Preset(String name, int width, int height, int mines) {
+		if (!Board.fits(width, height) || mines < 0 || mines > width * height) {
+			throw new IllegalArgumentException("No mine field of " + width + "x" + height + " has " + mines + " mines");
+		}
+		this.name = name;
+		this.width = width;
+		this.height = height;
+		this.mines = mines;
+	}
+
+	/**
+	 * Reads a preset written as columns x rows / mines, such as "30x16/99".
+	 * Input: the name to give it, and the text
+	 */
+	public static Preset parse(String name, String text) {
+		String spec = text.trim().toLowerCase();
+		int x = spec.indexOf('x');
+		int slash = spec.indexOf('/');
+		if (x <= 0 || slash <= x + 1 || slash == spec.length() - 1) {
+			throw new IllegalArgumentException("Not a preset, which is written as columns x rows / mines: " + text);
+		}
+		try {
+			int width = Integer.parseInt(spec.substring(0, x).trim());
+			int height = Integer.parseInt(spec.substring(x + 1, slash).trim());
+			int mines = Integer.parseInt(spec.substring(slash + 1).trim());
+			return new Preset(name, width, height, mines);
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a preset, which is written as columns x rows / mines: " + text);
+		}
+	}
+
+	/**
+	 * Returns the preset of this name, or else the preset this text is written as.
+	 * Input: the presets by name, and the name or the written preset
+	 */
+	public static Preset find(Map<String, Preset> presets, String text) {
+		Preset preset = presets.get(text.trim());
+		return preset != null ? preset : parse("custom", text);
+	}
+
+	/**
+	 * Returns the standard presets, by name.
+	 */
+	public static Map<String, Preset> getStandard() {
+		Map<String, Preset> presets = new LinkedHashMap<String, Preset>();
+		add(presets, new Preset("beginner", 9, 9, 10));
+		add(presets, new Preset("intermediate", 16, 16, 40));
+		add(presets, new Preset("expert", 30, 16, 99));
+		add(presets, new Preset("classic", 20, 20, 50));
+		return presets;
+	}
+
+	/**
+	 * Returns the standard presets together with those of a file of properties, by name.
+	 * Input: the file
+	 */
+	public static Map<String, Preset> load(Path path) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(path)) {
+			properties.load(reader);
+		}
+		Map<String, Preset> presets = getStandard();
+		for (String name : properties.stringPropertyNames()) {
+			try {
+				add(presets, parse(name, properties.getProperty(name)));
+			}
+			catch (IllegalArgumentException e) {
+				throw new IOException(path + ": " + name + ": " + e.getMessage());
+			}
+		}
+		return presets;
+	}
+
+	/**
+	 * Adds a preset to a map, by name.
+	 * Input: the map, and the preset
+	 */
+	private static void add(Map<String, Preset> presets, Preset preset) {
+		presets.put(preset.getName(), preset);
+	}
+
+	/**
+	 * Returns the preset written as columns x rows / mines.
+	 */
+	public String toString() {
+		return width + "x" + height + "/" + mines;
+	}
+
+	// Getters
+	public String getName() {
+		return name;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getMines() {
+		return mines;
+	}
+
+}
@@ -0,0 +1,741 @@
+package minesweeper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * An instance works out how likely each unknown cell of a model is to be a mine, for when the solver
+ * has no certain move left.
+ *
+ * The unknown cells next to the frontier are split into components: two cells are in the same component
+ * when a chain of constraints links them, so the mines of one component don't depend on those of another.
+ * The arrangements of the mines in each component are counted on a fork-join pool, one task for each
+ * component, and the first levels of the search of a large component are split into tasks too. For each
+ * component this gives the number of arrangements with k mines, and how many of those have a mine on
+ * each cell. The components are then combined with the number of mines left: a total of s mines next to
+ * the frontier leaves C(U, M - s) ways of placing the other M - s mines on the U interior cells.
+ *
+ * A component with too many cells, or whose count runs past the time limit, is estimated instead, by
+ * following random paths through its search (Knuth's estimator), and the results are marked approximate.
+ *
+ * @author Benjamin Revard
+ */
+public class ProbabilityEngine {
+
+	private static final int SPLIT_DEPTH = 4; // The number of levels of a search that are split into tasks
+	private static final int FORK_CELLS = 24; // The number of cells from which a component's search is split
+	private static final int SAMPLE_BATCH = 256; // The number of samples a task draws without splitting
+	private static final double LOG_2 = Math.log(2);
+
+	private Solver solver; // The solver giving the constraints and the known cells
+	private ForkJoinPool pool; // The pool the components are counted on
+	private SplittableRandom random; // The source of the sampling paths
+	private long timeout; // The time the exact counts may take, in milliseconds (>= 0)
+	private int maxExactCells; // The largest component that is counted exactly (>= 0)
+	private int samples; // The number of paths followed to estimate a component (> 0)
+	private int[] local; // The position of each frontier cell in the current computation, or -1, indexed like the board
+
+	/**
+	 * Constructor: makes an engine for the model of this solver, that runs on the common fork-join pool.
+	 * Input: the solver
+	 */
+	public ProbabilityEngine(Solver solver) {
+		this(solver, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor: makes an engine for the model of this solver, that runs on the given pool.
+	 * Input: the solver, and the pool
+	 */
+	public ProbabilityEngine(Solver solver, ForkJoinPool pool) {
+		this.solver = solver;
+		this.pool = pool;
+		this.random = new SplittableRandom();
+		this.timeout = 200;
+		this.maxExactCells = 64;
+		this.samples = 4096;
+	}
+
+	/**
+	 * Works out the probability of each unknown cell being a mine, from the cells revealed so far.
+	 */
+	public MineProbabilities compute() {
+		long deadline = System.nanoTime() + timeout * 1000000L;
+		Model model = solver.getModel();
+		Board board = model.getBoard();
+		if (local == null || local.length != board.size()) {
+			local = new int[board.size()];
+			Arrays.fill(local, -1);
+		}
+		int minesLeft = model.getMines() - solver.getKnownMines();
+		int unknown = model.getHidden() - solver.getKnownMines() - solver.getKnownSafeHidden();
+		if (model.hasLost() || unknown <= 0) {
+			return new MineProbabilities(new int[0], new double[0], 0, 0, -1, 0, false);
+		}
+
+		// Gather the constraints of the frontier, numbering their unknown cells
+		int[] frontier = solver.getFrontier();
+		int[] offsets = board.getNeighborOffsets();
+		IntQueue cells = new IntQueue();
+		int[][] constraintCells = new int[frontier.length][];
+		int[] need = new int[frontier.length];
+		for (int f = 0; f < frontier.length; f++) {
+			IntQueue around = new IntQueue();
+			for (int offset : offsets) {
+				int index = frontier[f] + offset;
+				if (solver.isUnknown(index)) {
+					if (local[index] < 0) {
+						local[index] = cells.size();
+						cells.add(index);
+					}
+					around.add(local[index]);
+				}
+			}
+			constraintCells[f] = around.toArray();
+			need[f] = solver.getMinesLeft(frontier[f]);
+		}
+		int[] boundary = cells.toArray();
+		int interior = unknown - boundary.length;
+
+		// Split the cells into components, listing each component's cells in the order a search reaches them
+		int[][] cellConstraints = constraintsOfCells(boundary.length, constraintCells);
+		List<Component> components = new ArrayList<Component>();
+		boolean[] seenCell = new boolean[boundary.length];
+		boolean[] seenConstraint = new boolean[frontier.length];
+		for (int start = 0; start < boundary.length; start++) {
+			if (!seenCell[start]) {
+				components.add(component(start, boundary, need, constraintCells, cellConstraints, seenCell, seenConstraint));
+			}
+		}
+
+		// Count the arrangements of each component, and estimate those that are too large or too slow
+		boolean approximate = false;
+		Tally[] tallies = new Tally[components.size()];
+		List<Search> searches = new ArrayList<Search>();
+		for (Component component : components) {
+			if (component.size <= maxExactCells) {
+				Search search = new Search(component, deadline);
+				pool.execute(search);
+				searches.add(search);
+			}
+			else {
+				component.timedOut = true;
+			}
+		}
+		List<Sample> estimates = new ArrayList<Sample>();
+		for (int c = 0, s = 0; c < components.size(); c++) {
+			Component component = components.get(c);
+			if (component.size <= maxExactCells) {
+				tallies[c] = searches.get(s++).join();
+			}
+			if (component.timedOut) {
+				Sample estimate = new Sample(component, samples, random.split());
+				pool.execute(estimate);
+				estimates.add(estimate);
+			}
+		}
+		for (int c = 0, s = 0; c < components.size(); c++) {
+			if (components.get(c).timedOut) {
+				tallies[c] = estimates.get(s++).join();
+				approximate = true;
+			}
+		}
+
+		// Combine the components with the number of mines left
+		double[][] counts = new double[tallies.length][];
+		int total = 0;
+		for (int c = 0; c < tallies.length; c++) {
+			counts[c] = tallies[c].normalize();
+			if (counts[c] == null) {
+				// No arrangement was found, so the component is left out and given the average density
+				counts[c] = new double[] {1};
+				approximate = true;
+			}
+			total += counts[c].length - 1;
+		}
+		double[] weights = weights(total, minesLeft, interior);
+		double[] all = convolve(counts, 0, counts.length);
+		double sum = dot(all, weights, 0);
+		if (!(sum > 0)) {
+			// The mines left don't fit any arrangement, so the number of mines is ignored
+			Arrays.fill(weights, 1);
+			sum = dot(all, weights, 0);
+			approximate = true;
+		}
+		double[][] others = new double[counts.length][];
+		distribute(counts, 0, counts.length, weights, others);
+
+		// Work out the probability of each cell
+		double[] probabilities = new double[boundary.length];
+		int[] order = new int[boundary.length];
+		int next = 0;
+		for (int c = 0; c < components.size(); c++) {
+			Component component = components.get(c);
+			double[][] cellCounts = tallies[c].getCellCounts();
+			for (int i = 0; i < component.size; i++) {
+				double probability = (double) minesLeft / unknown;
+				if (counts[c].length > 1) {
+					probability = dot(cellCounts[i], others[c], 0) / sum;
+				}
+				order[next] = component.cells[i];
+				probabilities[next++] = Math.min(1, Math.max(0, probability));
+			}
+		}
+		double interiorProbability = 0;
+		if (interior > 0) {
+			double expected = 0;
+			for (int s = 0; s < all.length && s < weights.length; s++) {
+				expected += all[s] * weights[s] * (minesLeft - s);
+			}
+			interiorProbability = Math.min(1, Math.max(0, expected / sum / interior));
+		}
+
+		// Find the safest cell, then forget the numbering
+		int safestCell = -1;
+		double lowest = 2;
+		for (int i = 0; i < order.length; i++) {
+			if (probabilities[i] < lowest) {
+				lowest = probabilities[i];
+				safestCell = order[i];
+			}
+		}
+		if (interior > 0 && interiorProbability < lowest) {
+			safestCell = interiorCell(board);
+		}
+		for (int index : boundary) {
+			local[index] = -1;
+		}
+		return new MineProbabilities(order, probabilities, interior, interiorProbability, safestCell,
+				components.size(), approximate);
+	}
+
+	/**
+	 * Returns the constraints of each cell, from the cells of each constraint.
+	 * Input: the number of cells, and the cells of each constraint
+	 */
+	private static int[][] constraintsOfCells(int size, int[][] constraintCells) {
+		int[] degree = new int[size];
+		for (int[] around : constraintCells) {
+			for (int cell : around) {
+				degree[cell]++;
+			}
+		}
+		int[][] cellConstraints = new int[size][];
+		for (int cell = 0; cell < size; cell++) {
+			cellConstraints[cell] = new int[degree[cell]];
+			degree[cell] = 0;
+		}
+		for (int f = 0; f < constraintCells.length; f++) {
+			for (int cell : constraintCells[f]) {
+				cellConstraints[cell][degree[cell]++] = f;
+			}
+		}
+		return cellConstraints;
+	}
+
+	/**
+	 * Builds the component of a cell, by a breadth-first search through the constraints, so that the cells of
+	 * each constraint come close together and the count can reject an arrangement soon after it goes wrong.
+	 * Input: the first cell, the board indices and constraints of all the cells, the cells and mines of all
+	 * the constraints, and the cells and constraints already in a component
+	 */
+	private static Component component(int start, int[] boundary, int[] need, int[][] constraintCells,
+			int[][] cellConstraints, boolean[] seenCell, boolean[] seenConstraint) {
+		IntQueue cells = new IntQueue();
+		IntQueue constraints = new IntQueue();
+		seenCell[start] = true;
+		cells.add(start);
+		for (int i = 0; i < cells.size(); i++) {
+			for (int f : cellConstraints[cells.get(i)]) {
+				if (!seenConstraint[f]) {
+					seenConstraint[f] = true;
+					constraints.add(f);
+					for (int cell : constraintCells[f]) {
+						if (!seenCell[cell]) {
+							seenCell[cell] = true;
+							cells.add(cell);
+						}
+					}
+				}
+			}
+		}
+
+		// Number the cells and constraints within the component
+		Component component = new Component(cells.size(), constraints.size());
+		int[] position = new int[boundary.length];
+		for (int i = 0; i < cells.size(); i++) {
+			position[cells.get(i)] = i;
+			component.cells[i] = boundary[cells.get(i)];
+		}
+		int[] numbered = new int[need.length];
+		for (int j = 0; j < constraints.size(); j++) {
+			int f = constraints.get(j);
+			numbered[f] = j;
+			component.need[j] = need[f];
+			component.open[j] = constraintCells[f].length;
+		}
+		for (int i = 0; i < cells.size(); i++) {
+			int[] around = cellConstraints[cells.get(i)];
+			component.constraints[i] = new int[around.length];
+			for (int k = 0; k < around.length; k++) {
+				component.constraints[i][k] = numbered[around[k]];
+			}
+		}
+		return component;
+	}
+
+	/**
+	 * Returns the weight of each total number of mines next to the frontier: the number of ways of placing the
+	 * other mines on the interior cells, relative to the largest. It is worked out with logarithms, from the
+	 * ratio between neighboring binomial coefficients, since the coefficients themselves can be far too large.
+	 * Input: the number of frontier cells, the number of mines left, and the number of interior cells
+	 */
+	private static double[] weights(int total, int minesLeft, int interior) {
+		double[] weights = new double[total + 1];
+		int low = Math.max(0, minesLeft - interior);
+		int high = Math.min(total, minesLeft);
+		if (low > high) {
+			return weights;
+		}
+		double[] logs = new double[high - low + 1];
+		double largest = 0;
+		for (int s = low + 1; s <= high; s++) {
+			logs[s - low] = logs[s - low - 1] + Math.log(minesLeft - s + 1) - Math.log(interior - minesLeft + s);
+			largest = Math.max(largest, logs[s - low]);
+		}
+		for (int s = low; s <= high; s++) {
+			weights[s] = Math.exp(logs[s - low] - largest);
+		}
+		return weights;
+	}
+
+	/**
+	 * Returns the counts of the arrangements with each total number of mines, over a range of components.
+	 * Input: the counts of each component, and the range of components
+	 */
+	private static double[] convolve(double[][] counts, int low, int high) {
+		if (high - low == 0) {
+			return new double[] {1};
+		}
+		else if (high - low == 1) {
+			return counts[low];
+		}
+		int mid = (low + high) >>> 1;
+		double[] a = convolve(counts, low, mid);
+		double[] b = convolve(counts, mid, high);
+		double[] product = new double[a.length + b.length - 1];
+		for (int i = 0; i < a.length; i++) {
+			for (int j = 0; j < b.length; j++) {
+				product[i + j] += a[i] * b[j];
+			}
+		}
+		return product;
+	}
+
+	/**
+	 * Works out, for each component, the weight of each number of mines in it once the other components and
+	 * the interior are accounted for. The range is halved each time, passing each half the weights with the
+	 * other half folded in, so no component's leave-one-out counts are built from scratch.
+	 * Input: the counts of each component, the range of components, the weight of each number of mines in the
+	 * range, and the array the weights of each component are stored in
+	 */
+	private static void distribute(double[][] counts, int low, int high, double[] weights, double[][] others) {
+		if (high - low == 1) {
+			others[low] = weights;
+			return;
+		}
+		else if (high - low == 0) {
+			return;
+		}
+		int mid = (low + high) >>> 1;
+		distribute(counts, low, mid, fold(weights, convolve(counts, mid, high)), others);
+		distribute(counts, mid, high, fold(weights, convolve(counts, low, mid)), others);
+	}
+
+	/**
+	 * Folds the counts of some components into the weights of a larger group, giving the weights of the rest.
+	 * Input: the weights of each number of mines in the group, and the counts of the components folded in
+	 */
+	private static double[] fold(double[] weights, double[] counts) {
+		double[] folded = new double[weights.length - counts.length + 1];
+		for (int j = 0; j < folded.length; j++) {
+			folded[j] = dot(counts, weights, j);
+		}
+		return folded;
+	}
+
+	/**
+	 * Returns the sum of a[k] * b[k + shift], over the k for which both exist.
+	 * Input: the two arrays, and the shift of the second (>= 0)
+	 */
+	private static double dot(double[] a, double[] b, int shift) {
+		double sum = 0;
+		for (int k = 0; k < a.length && k + shift < b.length; k++) {
+			sum += a[k] * b[k + shift];
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the board index of an unknown cell away from the frontier, preferring corners, where a safe
+	 * cell is most likely to open an area.
+	 * Precondition: there is such a cell, and the frontier cells are numbered
+	 */
+	private int interiorCell(Board board) {
+		int lastCol = board.getWidth() - 1;
+		int lastRow = board.getHeight() - 1;
+		int[] corners = {board.index(0, 0), board.index(lastCol, 0), board.index(0, lastRow),
+				board.index(lastCol, lastRow)};
+		for (int index : corners) {
+			if (solver.isUnknown(index) && local[index] < 0) {
+				return index;
+			}
+		}
+		for (int row = 0; row <= lastRow; row++) {
+			for (int index = board.index(0, row); index <= board.index(lastCol, row); index++) {
+				if (solver.isUnknown(index) && local[index] < 0) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	// Setters
+	/**
+	 * Sets how long the exact counts may take, after which the components not yet counted are estimated.
+	 * Input: the time limit in milliseconds (>= 0)
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	public void setMaxExactCells(int maxExactCells) {
+		this.maxExactCells = maxExactCells;
+	}
+
+	public void setSamples(int samples) {
+		this.samples = samples;
+	}
+
+	public void setRandom(SplittableRandom random) {
+		this.random = random;
+	}
+
+	/**
+	 * The unknown cells next to the frontier that are linked by constraints, and those constraints.
+	 */
+	private static class Component {
+
+		private int size; // The number of cells (> 0)
+		private int[] cells; // The board index of each cell
+		private int[][] constraints; // The constraints each cell is in
+		private int[] need; // The number of mines each constraint needs among its cells
+		private int[] open; // The number of cells of each constraint
+		private volatile boolean timedOut; // Whether the component must be estimated rather than counted
+
+		private Component(int size, int constraints) {
+			this.size = size;
+			this.cells = new int[size];
+			this.constraints = new int[size][];
+			this.need = new int[constraints];
+			this.open = new int[constraints];
+		}
+
+	}
+
+	/**
+	 * A partial arrangement of the mines of a component, checked against its constraints as cells are set.
+	 */
+	private static class Assignment {
+
+		private Component component; // The component being arranged
+		private byte[] mine; // 1 for each cell that has a mine, in the cells set so far
+		private int[] mines; // The number of mines among the cells set so far, for each constraint
+		private int[] open; // The number of cells not yet set, for each constraint
+		private int placed; // The number of mines among the cells set so far (>= 0)
+
+		private Assignment(Component component) {
+			this.component = component;
+			this.mine = new byte[component.size];
+			this.mines = new int[component.need.length];
+			this.open = component.open.clone();
+		}
+
+		private Assignment(Assignment other) {
+			this.component = other.component;
+			this.mine = other.mine.clone();
+			this.mines = other.mines.clone();
+			this.open = other.open.clone();
+			this.placed = other.placed;
+		}
+
+		/**
+		 * Sets a cell, and checks that every constraint can still be met.
+		 * Input: the cell, and 1 for a mine or 0 for none
+		 */
+		private boolean set(int cell, int value) {
+			mine[cell] = (byte) value;
+			placed += value;
+			boolean fits = true;
+			int[] need = component.need;
+			for (int f : component.constraints[cell]) {
+				open[f]--;
+				mines[f] += value;
+				fits &= mines[f] <= need[f] && mines[f] + open[f] >= need[f];
+			}
+			return fits;
+		}
+
+		/**
+		 * Undoes set.
+		 * Input: the cell, and the value it was set to
+		 */
+		private void unset(int cell, int value) {
+			placed -= value;
+			for (int f : component.constraints[cell]) {
+				open[f]++;
+				mines[f] -= value;
+			}
+		}
+
+		/**
+		 * Sets no cell.
+		 */
+		private void clear() {
+			Arrays.fill(mines, 0);
+			System.arraycopy(component.open, 0, open, 0, open.length);
+			placed = 0;
+		}
+
+	}
+
+	/**
+	 * The counts of the arrangements of a component by number of mines, in total and with a mine on each cell.
+	 * The counts are kept relative to a scale, exp(scale), so that estimates far beyond the range of a double fit.
+	 */
+	private static class Tally {
+
+		private double[] counts; // The count for each number of mines
+		private double[][] cellCounts; // The count for each cell and number of mines
+		private double scale; // The logarithm of the unit of the counts
+
+		private Tally(int size) {
+			counts = new double[size + 1];
+			cellCounts = new double[size][size + 1];
+			scale = Double.NEGATIVE_INFINITY;
+		}
+
+		/**
+		 * Counts an arrangement.
+		 * Input: the logarithm of its weight, and the arrangement
+		 */
+		private void record(double weight, Assignment assignment) {
+			if (weight > scale) {
+				rescale(weight);
+			}
+			double count = Math.exp(weight - scale);
+			int placed = assignment.placed;
+			counts[placed] += count;
+			for (int cell = 0; cell < assignment.mine.length; cell++) {
+				if (assignment.mine[cell] != 0) {
+					cellCounts[cell][placed] += count;
+				}
+			}
+		}
+
+		/**
+		 * Adds the counts of another tally of the same component.
+		 * Input: the other tally
+		 */
+		private void add(Tally other) {
+			if (other.scale == Double.NEGATIVE_INFINITY) {
+				return;
+			}
+			else if (other.scale > scale) {
+				rescale(other.scale);
+			}
+			double factor = Math.exp(other.scale - scale);
+			for (int k = 0; k < counts.length; k++) {
+				counts[k] += other.counts[k] * factor;
+			}
+			for (int cell = 0; cell < cellCounts.length; cell++) {
+				for (int k = 0; k < counts.length; k++) {
+					cellCounts[cell][k] += other.cellCounts[cell][k] * factor;
+				}
+			}
+		}
+
+		/**
+		 * Changes the unit of the counts.
+		 * Input: the logarithm of the new unit
+		 */
+		private void rescale(double newScale) {
+			double factor = Math.exp(scale - newScale);
+			for (int k = 0; k < counts.length; k++) {
+				counts[k] *= factor;
+			}
+			for (double[] row : cellCounts) {
+				for (int k = 0; k < row.length; k++) {
+					row[k] *= factor;
+				}
+			}
+			scale = newScale;
+		}
+
+		/**
+		 * Divides the counts by the largest, and returns the counts for each number of mines,
+		 * or null if no arrangement was counted.
+		 */
+		private double[] normalize() {
+			double largest = 0;
+			for (double count : counts) {
+				largest = Math.max(largest, count);
+			}
+			if (!(largest > 0)) {
+				return null;
+			}
+			rescale(scale + Math.log(largest));
+			return counts;
+		}
+
+		// Getters
+		private double[][] getCellCounts() {
+			return cellCounts;
+		}
+
+	}
+
+	/**
+	 * Counts every arrangement of a component by backtracking. The first levels of the search are split into
+	 * a task for each value of the cell, so a large component keeps several workers busy.
+	 */
+	private static class Search extends RecursiveTask<Tally> {
+
+		private Component component; // The component being counted
+		private Assignment assignment; // The arrangement of the cells before the first cell of this task
+		private int first; // The first cell this task sets (>= 0)
+		private long deadline; // The value of System.nanoTime at which the count gives up
+		private long nodes; // The number of steps taken, between checks of the deadline
+
+		private Search(Component component, long deadline) {
+			this.component = component;
+			this.assignment = new Assignment(component);
+			this.first = 0;
+			this.deadline = deadline;
+		}
+
+		private Search(Search parent, Assignment assignment) {
+			this.component = parent.component;
+			this.assignment = assignment;
+			this.first = parent.first + 1;
+			this.deadline = parent.deadline;
+		}
+
+		protected Tally compute() {
+			Tally tally = new Tally(component.size);
+			if (first < SPLIT_DEPTH && first < component.size && component.size >= FORK_CELLS) {
+				List<Search> children = new ArrayList<Search>();
+				for (int value = 0; value <= 1; value++) {
+					Assignment child = new Assignment(assignment);
+					if (child.set(first, value)) {
+						children.add(new Search(this, child));
+					}
+				}
+				for (Search child : ForkJoinTask.invokeAll(children)) {
+					tally.add(child.join());
+				}
+			}
+			else {
+				search(first, tally);
+			}
+			return tally;
+		}
+
+		/**
+		 * Counts the arrangements of the cells from this one on.
+		 * Input: the cell, and the tally the arrangements are counted in
+		 */
+		private void search(int cell, Tally tally) {
+			if (component.timedOut) {
+				return;
+			}
+			else if ((++nodes & 1023) == 0 && System.nanoTime() > deadline) {
+				component.timedOut = true;
+				return;
+			}
+			else if (cell == component.size) {
+				tally.record(0, assignment);
+				return;
+			}
+			for (int value = 0; value <= 1; value++) {
+				if (assignment.set(cell, value)) {
+					search(cell + 1, tally);
+				}
+				assignment.unset(cell, value);
+			}
+		}
+
+	}
+
+	/**
+	 * Estimates the arrangements of a component by following random paths through its search. Each path
+	 * sets the cells in turn to a random value that still fits the constraints; an arrangement reached this way
+	 * stands for the product of the number of choices along its path, so on average the counts are exact.
+	 */
+	private static class Sample extends RecursiveTask<Tally> {
+
+		private Component component; // The component being estimated
+		private int samples; // The number of paths this task follows (> 0)
+		private SplittableRandom random; // The source of the paths of this task
+
+		private Sample(Component component, int samples, SplittableRandom random) {
+			this.component = component;
+			this.samples = samples;
+			this.random = random;
+		}
+
+		protected Tally compute() {
+			Tally tally = new Tally(component.size);
+			if (samples > SAMPLE_BATCH) {
+				Sample left = new Sample(component, samples / 2, random.split());
+				Sample right = new Sample(component, samples - samples / 2, random.split());
+				ForkJoinTask.invokeAll(left, right);
+				tally.add(left.join());
+				tally.add(right.join());
+				return tally;
+			}
+			Assignment assignment = new Assignment(component);
+			for (int s = 0; s < samples; s++) {
+				assignment.clear();
+				double weight = 0;
+				int cell = 0;
+				while (cell < component.size) {
+					boolean empty = assignment.set(cell, 0);
+					assignment.unset(cell, 0);
+					boolean mine = assignment.set(cell, 1);
+					assignment.unset(cell, 1);
+					if (!empty && !mine) {
+						break;
+					}
+					else if (empty && mine) {
+						weight += LOG_2;
+					}
+					assignment.set(cell, mine && (!empty || random.nextBoolean()) ? 1 : 0);
+					cell++;
+				}
+				if (cell == component.size) {
+					tally.record(weight, assignment);
+				}
+			}
+			return tally;
+		}
+
+	}
+
+}
@@ -0,0 +1,43 @@
+package minesweeper;
+
+/**
+ * A source of mine fields with the mines placed at random, as in a normal game.
+ *
+ * @author Benjamin Revard
+ */
+public class RandomBoardSource implements BoardSource {
+
+	private int width; // The number of columns of the mine fields (> 0)
+	private int height; // The number of rows of the mine fields (> 0)
+	private int mines; // The number of mines in the mine fields (>= 0)
+	private boolean safeFirstClick; // Whether placing the mines waits for the first reveal
+
+	/**
+	 * Constructor: makes a source of mine fields of this size.
+	 * Input: the number of columns and the number of rows of the mine fields, the number of mines in them,
+	 * and whether the first click is safe
+	 */
+	public RandomBoardSource(int width, int height, int mines, boolean safeFirstClick) {
+		this.width = width;
+		this.height = height;
+		this.mines = mines;
+		this.safeFirstClick = safeFirstClick;
+	}
+
+	/**
+	 * Makes the seeded model of a new game.
+	 * Input: the seed the model places its mines from
+	 */
+	public Model create(long seed) {
+		return new Model(width, height, mines, seed, safeFirstClick);
+	}
+
+	/**
+	 * Clears the model of a finished game, placing new mines unless the first click is safe.
+	 * Input: a model this source created, and the seed of the new game
+	 */
+	public void prepare(Model model, long seed) {
+		model.reset(seed);
+	}
+
+}
@@ -0,0 +1,196 @@
+package minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * What the game thread changed since it last handed changes to the event dispatch thread: the cells whose
+ * state changed, or a copy of the whole board when too much changed to list, along with the mine counter,
+ * the clock and the end of the game. The game thread fills a delta while it applies a batch of commands, and
+ * hands it over to be applied to the board mirror and the view in one go.
+ *
+ * Deltas coalesce: if the event dispatch thread hasn't applied a delta by the time the next is ready, the
+ * next is merged into it, so however fast commands arrive, the view applies at most one delta per paint.
+ * A delta belongs to one thread at a time, so it needs no locks.
+ *
+ * @author Benjamin Revard
+ */
+public class RenderDelta {
+
+	private Board field; // A copy of the whole board, to replace the mirror with, or null
+	private int mines; // The number of mines of the copied board (>= 0)
+	private boolean newGame; // Whether a new game started, which resets the view
+	private long[] cells; // The cells that changed, as their index on the board above their state
+	private int size; // The number of cells that changed (>= 0)
+	private int counter; // The number to show on the mine counter
+	private boolean counterSet; // Whether the counter changed
+	private boolean victory; // Whether the game was won
+	private long elapsedNanos; // How long the game had lasted when the delta was made, in nanoseconds
+	private long clockAt; // The value of System.nanoTime when the delta was made
+	private boolean clockRunning; // Whether the clock was running
+	private boolean clockSet; // Whether the clock was read
+
+	/**
+	 * Constructor: makes an empty delta.
+	 */
+	public RenderDelta() {
+		cells = new long[16];
+	}
+
+	/**
+	 * Records that the whole board changed, as when a new game starts or every cell is revealed. The cells
+	 * changed before are dropped, since the copy holds them.
+	 * Input: the model of the game, and whether a new game started
+	 */
+	void setField(Model model, boolean newGame) {
+		field = model.getBoard().copy();
+		mines = model.getMines();
+		size = 0;
+		if (newGame) {
+			this.newGame = true;
+			victory = false;
+		}
+	}
+
+	/**
+	 * Records that a cell changed.
+	 * Input: the board, and the index of the cell
+	 */
+	void addCell(Board board, int index) {
+		if (size == cells.length) {
+			cells = Arrays.copyOf(cells, size * 2);
+		}
+		cells[size++] = (long) index << 8 | board.getState(index);
+	}
+
+	/**
+	 * Records that every cell of a batch of revealed cells changed. Each cell listed takes eight bytes
+	 * where a copy of the board takes one per cell, so once the list would outgrow a copy, the board is
+	 * copied instead.
+	 * Input: the model of the game, and the batch
+	 */
+	void addCells(Model model, RevealBatch batch) {
+		Board board = model.getBoard();
+		if ((long) (size + batch.size()) * 8 > (long) board.getWidth() * board.getHeight()) {
+			setField(model, false);
+			return;
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			addCell(board, batch.get(i));
+		}
+	}
+
+	/**
+	 * Records the time on the clock.
+	 * Input: the clock
+	 */
+	void setClock(GameClock clock) {
+		elapsedNanos = clock.getElapsedNanos();
+		clockAt = System.nanoTime();
+		clockRunning = clock.getIsRunning();
+		clockSet = true;
+	}
+
+	/**
+	 * Adds the changes of a later delta to this one, as if both had been made as one.
+	 * Input: the later delta, which mustn't be used afterwards
+	 */
+	void merge(RenderDelta later) {
+		if (later.field != null) {
+			field = later.field;
+			mines = later.mines;
+			size = 0;
+		}
+		if (later.newGame) {
+			newGame = true;
+			victory = false;
+			counterSet = false;
+		}
+		for (int i = 0; i < later.size; i++) {
+			if (size == cells.length) {
+				cells = Arrays.copyOf(cells, size * 2);
+			}
+			cells[size++] = later.cells[i];
+		}
+		if (later.counterSet) {
+			setCounter(later.counter);
+		}
+		victory |= later.victory;
+		if (later.clockSet) {
+			elapsedNanos = later.elapsedNanos;
+			clockAt = later.clockAt;
+			clockRunning = later.clockRunning;
+			clockSet = true;
+		}
+	}
+
+	/**
+	 * Checks if the delta holds no changes.
+	 */
+	public boolean isEmpty() {
+		return field == null && !newGame && size == 0 && !counterSet && !victory && !clockSet;
+	}
+
+	/**
+	 * Returns the seconds the clock shows at a moment, from the clock as it was recorded.
+	 * Input: the value of System.nanoTime at that moment
+	 */
+	public int getSecondsAt(long now) {
+		return (int) ((elapsedNanos + (clockRunning ? now - clockAt : 0)) / 1000000000L);
+	}
+
+	// Getters
+	public Board getField() {
+		return field;
+	}
+
+	public int getMines() {
+		return mines;
+	}
+
+	public boolean getIsNewGame() {
+		return newGame;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getIndex(int i) {
+		return (int) (cells[i] >>> 8);
+	}
+
+	public int getState(int i) {
+		return (int) cells[i] & 0xFF;
+	}
+
+	public int getCounter() {
+		return counter;
+	}
+
+	public boolean getIsCounterSet() {
+		return counterSet;
+	}
+
+	public boolean getIsVictory() {
+		return victory;
+	}
+
+	public boolean getIsClockSet() {
+		return clockSet;
+	}
+
+	public boolean getIsClockRunning() {
+		return clockRunning;
+	}
+
+	// Setters
+	void setCounter(int counter) {
+		this.counter = counter;
+		this.counterSet = true;
+	}
+
+	void setVictory(boolean victory) {
+		this.victory = victory;
+	}
+
+}
@@ -0,0 +1,77 @@
+package minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * An instance holds the cells revealed by one action on the model, as a compact
+ * list of board indices. The flood fill also uses the batch as its work queue, so
+ * revealing any number of cells needs no other storage.
+ *
+ * A model reuses its batch for every reveal, so the contents are only valid until
+ * the next reveal on the same model.
+ *
+ * @author Benjamin Revard
+ */
+public class RevealBatch {
+
+	private Board board; // The board the indices refer to
+	private int[] cells; // The indices of the revealed cells, in the order they were revealed
+	private int size; // The number of revealed cells in the batch (>= 0)
+
+	/**
+	 * Constructor: makes a new, empty batch.
+	 * Input: the board the batch refers to
+	 */
+	RevealBatch(Board board) {
+		this.board = board;
+		cells = new int[64];
+		size = 0;
+	}
+
+	/**
+	 * Empties the batch without releasing its storage.
+	 */
+	void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Adds a cell to the end of the batch, growing the storage if needed.
+	 * Input: the index of the cell
+	 */
+	void add(int index) {
+		if (size == cells.length) {
+			cells = Arrays.copyOf(cells, size * 2);
+		}
+		cells[size++] = index;
+	}
+
+	/**
+	 * Returns the board index of the i-th revealed cell.
+	 * Input: the position in the batch
+	 */
+	public int get(int i) {
+		return cells[i];
+	}
+
+	public int getColumn(int i) {
+		return board.column(cells[i]);
+	}
+
+	public int getRow(int i) {
+		return board.row(cells[i]);
+	}
+
+	public int getValue(int i) {
+		return board.getValue(cells[i]);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+}
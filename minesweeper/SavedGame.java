@@ -0,0 +1,32 @@
+package minesweeper;
+
+/**
+ * A game read from a save file: the model, with its mines and the player's progress, and the time
+ * the game had lasted when it was saved.
+ *
+ * @author Benjamin Revard
+ */
+public class SavedGame {
+
+	private Model model; // The model of the game
+	private long elapsedNanos; // How long the game had lasted, in nanoseconds (>= 0)
+
+	/**
+	 * Constructor: gathers a loaded game.
+	 * Input: the model, and how long the game had lasted in nanoseconds
+	 */
+	public SavedGame(Model model, long elapsedNanos) {
+		this.model = model;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	// Getters
+	public Model getModel() {
+		return model;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+}
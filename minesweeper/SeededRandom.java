@@ -0,0 +1,79 @@
+package minesweeper;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A random generator whose output depends only on its seed, so a mine field placed with it can be placed again
+ * exactly, on any machine and any version of Java. It is the SplitMix64 generator, written out here rather than
+ * borrowed from the library, whose bounded methods are free to change between versions.
+ *
+ * It is not thread-safe; each model has its own.
+ *
+ * @author Benjamin Revard
+ */
+public class SeededRandom implements RandomGenerator {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L; // The step between states, odd
+
+	private long seed; // The seed the generator started from
+	private long state; // The state, advanced by GOLDEN_GAMMA at each number
+
+	/**
+	 * Constructor: makes a generator starting from this seed.
+	 * Input: the seed
+	 */
+	public SeededRandom(long seed) {
+		setSeed(seed);
+	}
+
+	/**
+	 * Starts the generator again from a seed.
+	 * Input: the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+		this.state = seed;
+	}
+
+	/**
+	 * Returns the next 64 random bits.
+	 */
+	public long nextLong() {
+		long z = (state += GOLDEN_GAMMA);
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Returns the next 32 random bits.
+	 */
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	/**
+	 * Returns a random integer from 0 up to the bound, each equally likely. The top 32 bits of a number are
+	 * multiplied by the bound and the high half kept, retrying the rare numbers that would favor some results.
+	 * Input: the bound (> 0)
+	 */
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("The bound must be positive: " + bound);
+		}
+		long product = (nextLong() >>> 32) * bound;
+		if ((product & 0xFFFFFFFFL) < bound) {
+			long threshold = (0x100000000L - bound) % bound;
+			while ((product & 0xFFFFFFFFL) < threshold) {
+				product = (nextLong() >>> 32) * bound;
+			}
+		}
+		return (int) (product >>> 32);
+	}
+
+	// Getters
+	public long getSeed() {
+		return seed;
+	}
+
+}
@@ -0,0 +1,166 @@
+package minesweeper;
+
+/**
+ * The totals of a batch of simulated games: how many were won, how many moves and guesses they took,
+ * and how many cells each reveal uncovered, counted in buckets of powers of two.
+ *
+ * @author Benjamin Revard
+ */
+public class SimulationStats {
+
+	public static final int BUCKETS = 32; // The number of buckets of the cascade histogram
+
+	private long games; // The number of games played (>= 0)
+	private long wins; // The number of games won (>= 0 and <= games)
+	private long moves; // The number of cells revealed by the player over all the games (>= 0)
+	private long guesses; // The number of reveals made without a certain safe cell (>= 0)
+	private long guessedGames; // The number of games that needed at least one guess (>= 0 and <= games)
+	private long[] cascades; // The number of reveals that uncovered from 2^k to 2^(k+1) - 1 cells, for each k
+	private long elapsedNanos; // The time the games took, in nanoseconds (>= 0)
+
+	/**
+	 * Constructor: makes empty totals.
+	 */
+	public SimulationStats() {
+		cascades = new long[BUCKETS];
+	}
+
+	/**
+	 * Counts a finished game.
+	 * Input: whether it was won, the number of moves, and the number of guesses
+	 */
+	public void addGame(boolean won, int gameMoves, int gameGuesses) {
+		games++;
+		if (won) {
+			wins++;
+		}
+		moves += gameMoves;
+		guesses += gameGuesses;
+		if (gameGuesses > 0) {
+			guessedGames++;
+		}
+	}
+
+	/**
+	 * Counts a reveal in the cascade histogram.
+	 * Input: the number of cells it uncovered (> 0)
+	 */
+	public void addCascade(int size) {
+		cascades[31 - Integer.numberOfLeadingZeros(size)]++;
+	}
+
+	/**
+	 * Adds the totals of other games to these.
+	 * Input: the other totals
+	 */
+	public void add(SimulationStats other) {
+		games += other.games;
+		wins += other.wins;
+		moves += other.moves;
+		guesses += other.guesses;
+		guessedGames += other.guessedGames;
+		for (int k = 0; k < BUCKETS; k++) {
+			cascades[k] += other.cascades[k];
+		}
+	}
+
+	/**
+	 * Makes these totals the same as others, time included.
+	 * Input: the other totals
+	 */
+	public void copy(SimulationStats other) {
+		clear();
+		add(other);
+		elapsedNanos = other.elapsedNanos;
+	}
+
+	/**
+	 * Sets every total back to zero.
+	 */
+	public void clear() {
+		games = 0;
+		wins = 0;
+		moves = 0;
+		guesses = 0;
+		guessedGames = 0;
+		for (int k = 0; k < BUCKETS; k++) {
+			cascades[k] = 0;
+		}
+		elapsedNanos = 0;
+	}
+
+	/**
+	 * Returns the share of the games that were won, or 0 if none was played.
+	 */
+	public double getWinRate() {
+		return games == 0 ? 0 : (double) wins / games;
+	}
+
+	/**
+	 * Returns the average number of moves per game.
+	 */
+	public double getMovesPerGame() {
+		return games == 0 ? 0 : (double) moves / games;
+	}
+
+	/**
+	 * Returns the average number of guesses per game.
+	 */
+	public double getGuessesPerGame() {
+		return games == 0 ? 0 : (double) guesses / games;
+	}
+
+	/**
+	 * Returns the number of games played per minute.
+	 */
+	public double getGamesPerMinute() {
+		return elapsedNanos == 0 ? 0 : games * 60e9 / elapsedNanos;
+	}
+
+	/**
+	 * Returns the number of reveals that uncovered from 2^k to 2^(k+1) - 1 cells.
+	 * Input: the bucket k (>= 0 and < BUCKETS)
+	 */
+	public long getCascades(int k) {
+		return cascades[k];
+	}
+
+	/**
+	 * Returns the totals on one line.
+	 */
+	public String toString() {
+		return String.format("%d games, %.2f%% won, %.1f moves and %.2f guesses per game, %.0f games/min",
+				games, 100 * getWinRate(), getMovesPerGame(), getGuessesPerGame(), getGamesPerMinute());
+	}
+
+	// Getters
+	public long getGames() {
+		return games;
+	}
+
+	public long getWins() {
+		return wins;
+	}
+
+	public long getMoves() {
+		return moves;
+	}
+
+	public long getGuesses() {
+		return guesses;
+	}
+
+	public long getGuessedGames() {
+		return guessedGames;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	// Setters
+	public void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+}
@@ -0,0 +1,219 @@
+package minesweeper;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * This plays large numbers of games without a user interface, to measure how often a strategy wins
+ * on mine fields of a given size.
+ *
+ * The strategy reveals the center cell first, then every cell the solver is certain is safe, and when there
+ * is none, guesses the cell least likely to be a mine by a local estimate: the highest density of mines left
+ * among the revealed cells around it, or the density over all the unknown cells if it has no revealed
+ * neighbor. A game is won once every safe cell is revealed; flags are never placed.
+ *
+ * The games are shared out in batches between worker threads. Each thread has its own random generator,
+ * split from one seed, and plays every game on the same model, engine and solver, so once running it
+ * allocates nothing. Each thread adds its totals to the shared ones after every batch.
+ *
+ * @author Benjamin Revard
+ */
+public class Simulator {
+
+	private static final int BATCH = 1024; // The number of games a thread plays between reports
+
+	private int width; // The number of columns of the mine fields (> 0)
+	private int height; // The number of rows of the mine fields (> 0)
+	private int mines; // The number of mines in the mine fields (>= 0)
+	private boolean safeFirstClick; // Whether the first reveal of a game is kept clear of mines
+	private long reportInterval; // The time between progress reports, in milliseconds (> 0)
+
+	/**
+	 * Constructor: makes a simulator of games on mine fields of this size, with a safe first click.
+	 * Input: the number of columns and the number of rows of the mine fields, and the number of mines in them
+	 */
+	public Simulator(int width, int height, int mines) {
+		this.width = width;
+		this.height = height;
+		this.mines = mines;
+		this.safeFirstClick = true;
+		this.reportInterval = 1000;
+	}
+
+	/**
+	 * Plays a number of games and returns their totals. While they are played, the totals so far are
+	 * handed to the progress action at regular intervals, on the calling thread.
+	 * Input: the number of games, the number of threads (> 0), the seed of the random generators, and the
+	 * progress action, or null for none
+	 */
+	public SimulationStats run(long games, int threads, long seed, Consumer<SimulationStats> progress)
+			throws InterruptedException {
+		SimulationStats total = new SimulationStats();
+		SimulationStats snapshot = new SimulationStats();
+		AtomicLong claimed = new AtomicLong();
+		SplittableRandom random = new SplittableRandom(seed);
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			SplittableRandom workerRandom = random.split();
+			workers[i] = new Thread(() -> work(workerRandom, claimed, games, total), "simulator-" + i);
+			workers[i].setDaemon(true);
+		}
+		long started = System.nanoTime();
+		for (Thread worker : workers) {
+			worker.start();
+		}
+		for (Thread worker : workers) {
+			while (worker.isAlive()) {
+				worker.join(reportInterval);
+				if (progress != null) {
+					synchronized (total) {
+						snapshot.copy(total);
+					}
+					snapshot.setElapsedNanos(System.nanoTime() - started);
+					progress.accept(snapshot);
+				}
+			}
+		}
+		total.setElapsedNanos(System.nanoTime() - started);
+		return total;
+	}
+
+	/**
+	 * Plays batches of games until they have all been claimed.
+	 * Input: the random generator of this thread, the number of games claimed so far, the number of games,
+	 * and the shared totals
+	 */
+	private void work(SplittableRandom random, AtomicLong claimed, long games, SimulationStats total) {
+		Model model = new Model(width, height, mines, random, safeFirstClick);
+		GameEngine engine = new GameEngine(model);
+		Solver solver = new Solver(model);
+		engine.setSolver(solver);
+		int[] offsets = model.getBoard().getNeighborOffsets();
+		SimulationStats stats = new SimulationStats();
+		for (long first = claimed.getAndAdd(BATCH); first < games; first = claimed.getAndAdd(BATCH)) {
+			long last = Math.min(games, first + BATCH);
+			for (long game = first; game < last; game++) {
+				play(model, engine, solver, offsets, stats);
+			}
+			synchronized (total) {
+				total.add(stats);
+			}
+			stats.clear();
+		}
+	}
+
+	/**
+	 * Plays one game on a model, and counts it.
+	 * Input: the model, an engine and a solver for it, the neighbor offsets of its board, and the totals
+	 * of this thread
+	 */
+	private void play(Model model, GameEngine engine, Solver solver, int[] offsets, SimulationStats stats) {
+		model.reset();
+		solver.reset();
+		Board board = model.getBoard();
+		int moves = 0;
+		int guesses = safeFirstClick ? 0 : 1;
+		int index = board.index(width / 2, height / 2);
+		while (true) {
+			MoveResult result = engine.reveal(board.column(index), board.row(index));
+			moves++;
+			if (!result.getRevealed().isEmpty()) {
+				stats.addCascade(result.getRevealed().size());
+			}
+			if (model.hasLost() || model.getHidden() == mines) {
+				break;
+			}
+			index = solver.pollSafeMove();
+			if (index < 0) {
+				index = guess(board, solver, offsets);
+				guesses++;
+			}
+		}
+		stats.addGame(!model.hasLost(), moves, guesses);
+	}
+
+	/**
+	 * Returns the board index of the unknown cell least likely to be a mine, by a local estimate.
+	 * Precondition: some cell is unknown
+	 * Input: the board, the solver, and the neighbor offsets of the board
+	 */
+	private int guess(Board board, Solver solver, int[] offsets) {
+		int unknown = 0;
+		for (int row = 0; row < height; row++) {
+			for (int index = board.index(0, row); index < board.index(width, row); index++) {
+				if (solver.isUnknown(index)) {
+					unknown++;
+				}
+			}
+		}
+		double density = (double) (mines - solver.getKnownMines()) / unknown;
+		int best = -1;
+		double lowest = 2;
+		for (int row = 0; row < height; row++) {
+			for (int index = board.index(0, row); index < board.index(width, row); index++) {
+				if (!solver.isUnknown(index)) {
+					continue;
+				}
+				double estimate = -1;
+				for (int offset : offsets) {
+					int neighbor = index + offset;
+					if (board.isRevealed(neighbor) && !board.isMine(neighbor)) {
+						int open = 0;
+						for (int around : offsets) {
+							if (solver.isUnknown(neighbor + around)) {
+								open++;
+							}
+						}
+						estimate = Math.max(estimate, (double) solver.getMinesLeft(neighbor) / open);
+					}
+				}
+				if (estimate < 0) {
+					estimate = density;
+				}
+				if (estimate < lowest) {
+					lowest = estimate;
+					best = index;
+				}
+			}
+		}
+		return best;
+	}
+
+	// Setters
+	public void setSafeFirstClick(boolean safeFirstClick) {
+		this.safeFirstClick = safeFirstClick;
+	}
+
+	public void setReportInterval(long reportInterval) {
+		this.reportInterval = reportInterval;
+	}
+
+	/**
+	 * Runs a simulation from the command line, printing the totals every second and the cascade histogram
+	 * at the end.
+	 * Arguments: the name of a standard preset or a size such as 30x16/99, games, and optionally the number
+	 * of threads and the seed
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		if (args.length < 2) {
+			System.err.println("Usage: java minesweeper.Simulator preset games [threads] [seed]");
+			System.exit(2);
+		}
+		Preset preset = Preset.find(Preset.getStandard(), args[0]);
+		long games = Long.parseLong(args[1]);
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+		Simulator simulator = new Simulator(preset.getWidth(), preset.getHeight(), preset.getMines());
+		SimulationStats stats = simulator.run(games, threads, seed, System.out::println);
+		System.out.println(stats);
+		System.out.println("Cells uncovered per reveal:");
+		for (int k = 0; k < SimulationStats.BUCKETS; k++) {
+			if (stats.getCascades(k) > 0) {
+				System.out.printf("  %d-%d: %d%n", 1L << k, (1L << (k + 1)) - 1, stats.getCascades(k));
+			}
+		}
+	}
+
+}
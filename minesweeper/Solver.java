@@ -0,0 +1,394 @@
+package minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * An instance deduces which hidden cells of a model are certainly safe and which are certainly
+ * mines, from the values of the revealed cells around them.
+ *
+ * Every revealed cell is a constraint: its value, less the mines already known around it, is the
+ * number of mines among its unknown neighbors. The solver keeps the frontier (the revealed cells
+ * that still have unknown neighbors) as cells are revealed, and only re-examines the constraints
+ * that a reveal or a deduction changed, so the cost of a move depends on the size of the frontier
+ * it touches, not on the size of the mine field. Two rules are applied:
+ * - a constraint with no mines left makes all its unknown cells safe, and one with as many mines
+ *   left as unknown cells makes them all mines;
+ * - for two overlapping constraints A and B, if A has as many more mines than B as it has cells that
+ *   B hasn't, then those cells are mines and the cells only B has are safe (this covers subsets, and
+ *   patterns such as 1-2-1).
+ * The cells of two nearby constraints always fit in a 7x7 window, so they are compared as 49-bit sets.
+ *
+ * @author Benjamin Revard
+ */
+public class Solver {
+
+	// Bits of the state the solver keeps for each cell
+	private static final int SAFE = 0x01; // The cell is known not to be a mine
+	private static final int MINE = 0x02; // The cell is known to be a mine
+	private static final int QUEUED = 0x04; // The constraint of the cell is waiting to be examined
+	private static final int FRONTIER = 0x08; // The cell is revealed and has unknown neighbors
+
+	// The column and row offsets of the neighbors, in the order of the board's neighbor offsets
+	private static final int[] DX = {-1, 0, 1, -1, 1, -1, 0, 1};
+	private static final int[] DY = {-1, -1, -1, 0, 0, 1, 1, 1};
+
+	private Model model; // The model whose cells are deduced
+	private Board board; // The packed cells of the model
+	private int width; // The number of columns of the mine field (> 0)
+	private int height; // The number of rows of the mine field (> 0)
+	private int stride; // The distance between two rows of the board
+	private int[] offsets; // The index offsets of the eight neighbors of a cell
+	private byte[] state; // The state the solver keeps for each cell, indexed like the board
+	private IntQueue queue; // The constraints waiting to be examined
+	private IntQueue frontier; // The cells that have joined the frontier (some may have left since)
+	private int frontierSize; // The number of cells in the frontier (>= 0)
+	private IntQueue safeCells; // The cells deduced to be safe, that haven't been handed out
+	private IntQueue mineCells; // The cells deduced to be mines
+	private int safeHidden; // The number of cells deduced to be safe that haven't been revealed (>= 0)
+
+	/**
+	 * Constructor: makes a solver for this model, starting from the cells already revealed.
+	 * Input: the model
+	 */
+	public Solver(Model model) {
+		this.model = model;
+		queue = new IntQueue();
+		frontier = new IntQueue();
+		safeCells = new IntQueue();
+		mineCells = new IntQueue();
+		reset();
+	}
+
+	/**
+	 * Forgets everything deduced so far, and starts again from the cells revealed in the model.
+	 * This is for when the model has been reset, or has changed other than through revealed.
+	 */
+	public void reset() {
+		board = model.getBoard();
+		width = model.getWidth();
+		height = model.getHeight();
+		stride = board.getStride();
+		offsets = board.getNeighborOffsets();
+		if (state == null || state.length != board.size()) {
+			state = new byte[board.size()];
+		}
+		else {
+			Arrays.fill(state, (byte) 0);
+		}
+		queue.clear();
+		frontier.clear();
+		frontierSize = 0;
+		safeCells.clear();
+		mineCells.clear();
+		safeHidden = 0;
+		for (int row = 0; row < height; row++) {
+			for (int index = board.index(0, row); index < board.index(width, row); index++) {
+				enqueue(index);
+			}
+		}
+	}
+
+	/**
+	 * Takes note of a batch of newly revealed cells: their constraints, and those of the revealed
+	 * cells around them, need examining again.
+	 * Input: the batch of revealed cells
+	 */
+	public void revealed(RevealBatch batch) {
+		for (int i = 0; i < batch.size(); i++) {
+			int index = batch.get(i);
+			if ((state[index] & SAFE) != 0) {
+				safeHidden--;
+			}
+			enqueue(index);
+			for (int offset : offsets) {
+				enqueue(index + offset);
+			}
+		}
+	}
+
+	/**
+	 * Returns the board indices of the hidden cells that are certainly safe to reveal.
+	 */
+	public int[] nextSafeMoves() {
+		process();
+		int count = safeCells.size();
+		for (int i = 0; i < count; i++) {
+			int index = safeCells.poll();
+			if (!board.isRevealed(index)) {
+				safeCells.add(index);
+			}
+		}
+		return safeCells.toArray();
+	}
+
+	/**
+	 * Returns the board index of one hidden cell that is certainly safe, and stops offering it,
+	 * or -1 if there is none. Unlike nextSafeMoves, this allocates nothing.
+	 */
+	public int pollSafeMove() {
+		process();
+		while (!safeCells.isEmpty()) {
+			int index = safeCells.poll();
+			if (!board.isRevealed(index)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the board indices of the cells that are certainly mines and haven't been flagged.
+	 */
+	public int[] nextCertainMines() {
+		process();
+		IntQueue unflagged = new IntQueue();
+		for (int i = 0; i < mineCells.size(); i++) {
+			int index = mineCells.get(i);
+			if (!board.isFlagged(index)) {
+				unflagged.add(index);
+			}
+		}
+		return unflagged.toArray();
+	}
+
+	/**
+	 * Returns the board indices of the cells in the frontier: revealed cells with unknown neighbors.
+	 */
+	public int[] getFrontier() {
+		process();
+		int count = frontier.size();
+		for (int i = 0; i < count; i++) {
+			int index = frontier.poll();
+			if ((state[index] & FRONTIER) != 0) {
+				frontier.add(index);
+			}
+		}
+		return frontier.toArray();
+	}
+
+	/**
+	 * Checks if a cell is unknown: hidden, and neither deduced safe nor deduced a mine.
+	 * Input: the board index of the cell
+	 */
+	public boolean isUnknown(int index) {
+		return !board.isRevealed(index) && !board.isBorder(index) && (state[index] & (SAFE | MINE)) == 0;
+	}
+
+	/**
+	 * Checks if a cell has been deduced to be a mine.
+	 * Input: the board index of the cell
+	 */
+	public boolean isKnownMine(int index) {
+		return (state[index] & MINE) != 0;
+	}
+
+	/**
+	 * Checks if a cell has been deduced, or revealed, to be safe.
+	 * Input: the board index of the cell
+	 */
+	public boolean isKnownSafe(int index) {
+		return (state[index] & SAFE) != 0 || (board.isRevealed(index) && !board.isMine(index));
+	}
+
+	/**
+	 * Returns the number of mines around a revealed cell that are still among its unknown neighbors.
+	 * Input: the board index of the revealed cell
+	 */
+	public int getMinesLeft(int index) {
+		return board.getValue(index) - knownMines(index);
+	}
+
+	/**
+	 * Examines every queued constraint, and the ones the deductions queue in turn.
+	 */
+	private void process() {
+		while (!queue.isEmpty()) {
+			int index = queue.poll();
+			state[index] &= ~QUEUED;
+			examine(index);
+		}
+	}
+
+	/**
+	 * Queues a constraint for examining, if the cell is revealed and safe and isn't queued already.
+	 * Input: the board index of the cell
+	 */
+	private void enqueue(int index) {
+		if ((state[index] & QUEUED) == 0 && board.isRevealed(index) && !board.isMine(index)) {
+			state[index] |= QUEUED;
+			queue.add(index);
+		}
+	}
+
+	/**
+	 * Applies the rules to the constraint of a revealed cell.
+	 * Input: the board index of the cell
+	 */
+	private void examine(int a) {
+		int unknown = unknownNeighbors(a);
+		if (unknown == 0) {
+			if ((state[a] & FRONTIER) != 0) {
+				state[a] &= ~FRONTIER;
+				frontierSize--;
+			}
+			return;
+		}
+		if ((state[a] & FRONTIER) == 0) {
+			state[a] |= FRONTIER;
+			frontier.add(a);
+			frontierSize++;
+		}
+
+		// A constraint on its own
+		int minesA = getMinesLeft(a);
+		if (minesA == 0) {
+			markNeighbors(a, unknown, SAFE);
+			return;
+		}
+		else if (minesA == Integer.bitCount(unknown)) {
+			markNeighbors(a, unknown, MINE);
+			return;
+		}
+
+		// Pairs with the frontier cells up to two columns and rows away
+		long maskA = window(unknown, 0, 0);
+		int col = board.column(a);
+		int row = board.row(a);
+		for (int dy = -2; dy <= 2; dy++) {
+			for (int dx = -2; dx <= 2; dx++) {
+				int b = a + dy * stride + dx;
+				if ((dx == 0 && dy == 0) || col + dx < 0 || col + dx >= width || row + dy < 0 || row + dy >= height
+						|| (state[b] & FRONTIER) == 0) {
+					continue;
+				}
+				long maskB = window(unknownNeighbors(b), dx, dy);
+				if ((maskA & maskB) == 0) {
+					continue;
+				}
+				int minesB = getMinesLeft(b);
+				long onlyA = maskA & ~maskB;
+				long onlyB = maskB & ~maskA;
+				if (onlyA == 0 && onlyB == 0) {
+					continue;
+				}
+				else if (minesA - minesB == Long.bitCount(onlyA)) {
+					markWindow(a, onlyA, MINE);
+					markWindow(a, onlyB, SAFE);
+					return;
+				}
+				else if (minesB - minesA == Long.bitCount(onlyB)) {
+					markWindow(a, onlyB, MINE);
+					markWindow(a, onlyA, SAFE);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the unknown neighbors of a cell, as a bit for each neighbor offset.
+	 * Input: the board index of the cell
+	 */
+	private int unknownNeighbors(int index) {
+		int unknown = 0;
+		for (int k = 0; k < 8; k++) {
+			if (isUnknown(index + offsets[k])) {
+				unknown |= 1 << k;
+			}
+		}
+		return unknown;
+	}
+
+	/**
+	 * Returns the number of neighbors of a cell that are known to be mines.
+	 * Input: the board index of the cell
+	 */
+	private int knownMines(int index) {
+		int count = 0;
+		for (int offset : offsets) {
+			count += (state[index + offset] & MINE) >> 1;
+		}
+		return count;
+	}
+
+	/**
+	 * Converts a set of neighbors of a cell into a set of cells of the 7x7 window centered on another cell.
+	 * Input: the neighbors as a bit for each neighbor offset, and the column and row offset of the cell
+	 * from the center of the window
+	 */
+	private long window(int neighbors, int dx, int dy) {
+		long mask = 0;
+		for (int k = 0; k < 8; k++) {
+			if ((neighbors & (1 << k)) != 0) {
+				mask |= 1L << ((dy + DY[k] + 3) * 7 + dx + DX[k] + 3);
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Records the deduction for a set of neighbors of a cell.
+	 * Input: the board index of the cell, the neighbors as a bit for each neighbor offset, and SAFE or MINE
+	 */
+	private void markNeighbors(int index, int neighbors, int deduction) {
+		for (int k = 0; k < 8; k++) {
+			if ((neighbors & (1 << k)) != 0) {
+				mark(index + offsets[k], deduction);
+			}
+		}
+	}
+
+	/**
+	 * Records the deduction for a set of cells of the 7x7 window centered on a cell.
+	 * Input: the board index of the center, the cells of the window, and SAFE or MINE
+	 */
+	private void markWindow(int center, long cells, int deduction) {
+		while (cells != 0) {
+			int bit = Long.numberOfTrailingZeros(cells);
+			cells &= cells - 1;
+			mark(center + (bit / 7 - 3) * stride + bit % 7 - 3, deduction);
+		}
+	}
+
+	/**
+	 * Records that a cell is safe or a mine, and queues the constraints around it, which have changed.
+	 * Input: the board index of the cell, and SAFE or MINE
+	 */
+	private void mark(int index, int deduction) {
+		if ((state[index] & (SAFE | MINE)) != 0) {
+			return;
+		}
+		state[index] |= deduction;
+		if (deduction == SAFE) {
+			safeCells.add(index);
+			safeHidden++;
+		}
+		else {
+			mineCells.add(index);
+		}
+		for (int offset : offsets) {
+			enqueue(index + offset);
+		}
+	}
+
+	// Getters
+	public int getFrontierSize() {
+		process();
+		return frontierSize;
+	}
+
+	public int getKnownMines() {
+		process();
+		return mineCells.size();
+	}
+
+	public int getKnownSafeHidden() {
+		process();
+		return safeHidden;
+	}
+
+	public Model getModel() {
+		return model;
+	}
+
+}
@@ -0,0 +1,58 @@
+package minesweeper;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This reads and writes variable-length integers, as used by journals and board IDs.
+ *
+ * An integer is written 7 bits to a byte, lowest first, with the top bit set on every byte but the last,
+ * so values under 128 take one byte.
+ *
+ * @author Benjamin Revard
+ */
+class Varint {
+
+	/**
+	 * Writes a non-negative integer 7 bits to a byte.
+	 * Input: the buffer, and the integer
+	 */
+	static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Reads an integer written by putVarLong.
+	 * Input: the buffer
+	 */
+	static long getVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed variable-length integer");
+	}
+
+	/**
+	 * Maps a signed integer onto a non-negative one, keeping small values small: 0, -1, 1, -2... become 0, 1, 2, 3...
+	 * Input: the integer
+	 */
+	static long zigzag(int value) {
+		return ((long) value << 1) ^ (value >> 31);
+	}
+
+	/**
+	 * Undoes zigzag.
+	 * Input: the mapped integer
+	 */
+	static int unzigzag(long value) {
+		return (int) (value >>> 1) ^ -(int) (value & 1);
+	}
+}
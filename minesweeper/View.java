@@ -1,6 +1,10 @@
 package minesweeper;
 
 import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import javax.swing.*;
 
 /**
@@ -11,21 +15,31 @@ import javax.swing.*;
  */
 public class View extends JFrame {
 	
-	private int length; // The length of one side of the mine field (> 0)
 	private int mines; // The number of mines in the mine field (> 0)
 	private JPanel topPanel; // JPanel to hold the reset button
 	private JLabel mineCounter; // Display to hold the number of mines minus the number of flags 
 	private JLabel timer; // Display to show how long the game has lasted
-	private JPanel buttonsPanel;  // JPanel to hold all the buttons
-	private JButton[][] buttons; // 2D array to hold all the mine field buttons
+	private BoardComponent board; // The component that draws the mine field
+	private JMenuItem saveItem; // Menu item to save the game to a file
+	private JMenuItem loadItem; // Menu item to load a game from a file
+	private JMenuItem openBoardItem; // Menu item to start a game on the mine field of a board ID
+	private JMenuItem copyBoardIdItem; // Menu item to copy the board ID of the game
 	
 	/**
-	 * Constructor: creates the panels and buttons for the JFrame.
-	 * Input: the length of one side of the mine field, and the number of mines
+	 * Constructor: creates the panels and the mine field for the JFrame.
+	 * Input: the model whose mine field to show
 	 */
-	public View(int length, int mines) {
+	public View(Model model) {
+		this(model, model.getMines());
+	}
+	
+	/**
+	 * Constructor: creates the panels and the mine field for the JFrame, for any mine field, endless ones
+	 * included.
+	 * Input: the mine field to show, and the number of mines to show on the counter
+	 */
+	public View(CellSource source, int mines) {
 		super("Mine Sweeper");
-		this.length = length;
 		this.mines = mines;
 		mineCounter = new JLabel("  " + Integer.toString(mines) + "  ");
 		timer = new JLabel("  0  ");
@@ -38,24 +52,45 @@ public class View extends JFrame {
 		topPanel.add(new JButton("Reset"), BorderLayout.CENTER);
 		topPanel.add(timer, BorderLayout.LINE_END);
 		
-		// Create all the mine field buttons
-		buttonsPanel = new JPanel();
-		add(buttonsPanel, BorderLayout.CENTER);
-		buttonsPanel.setLayout(new GridLayout(length, length, 0, 0));
-		buttons = new JButton[length][length];
+		// Create the game menu
+		JMenuBar menuBar = new JMenuBar();
+		JMenu gameMenu = new JMenu("Game");
+		saveItem = new JMenuItem("Save...");
+		loadItem = new JMenuItem("Load...");
+		gameMenu.add(saveItem);
+		gameMenu.add(loadItem);
+		gameMenu.addSeparator();
+		openBoardItem = new JMenuItem("Open board by ID...");
+		copyBoardIdItem = new JMenuItem("Copy board ID");
+		gameMenu.add(openBoardItem);
+		gameMenu.add(copyBoardIdItem);
+		menuBar.add(gameMenu);
 		
-		for (int i = 0; i < length; i++) {
-			for (int j = 0; j < length; j++) {
-				buttons[j][i] = new JButton();
-				buttons[j][i].putClientProperty("column", j);
-				buttons[j][i].putClientProperty("row", i);
-				buttonsPanel.add(buttons[j][i]);
-			}
-		}
+		// Create the view menu, which only concerns the mine field component
+		JMenu viewMenu = new JMenu("View");
+		JMenuItem zoomInItem = new JMenuItem("Zoom in");
+		JMenuItem zoomOutItem = new JMenuItem("Zoom out");
+		JMenuItem fitItem = new JMenuItem("Fit to window");
+		int shortcut = getToolkit().getMenuShortcutKeyMaskEx();
+		zoomInItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_EQUALS, shortcut));
+		zoomOutItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_MINUS, shortcut));
+		fitItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_0, shortcut));
+		zoomInItem.addActionListener(e -> board.zoomIn());
+		zoomOutItem.addActionListener(e -> board.zoomOut());
+		fitItem.addActionListener(e -> board.fitToWindow());
+		viewMenu.add(zoomInItem);
+		viewMenu.add(zoomOutItem);
+		viewMenu.add(fitItem);
+		menuBar.add(viewMenu);
+		setJMenuBar(menuBar);
+		
+		// Create the mine field
+		board = new BoardComponent(source);
+		add(board, BorderLayout.CENTER);
 	}
 	
 	/**
-	 * Registers the controller as the listener to the buttons.
+	 * Registers the controller as the listener to the buttons, the menu, the mine field and the window.
 	 */
 	public void registerListener(Controller controller) {
 		
@@ -64,75 +99,98 @@ public class View extends JFrame {
 		AbstractButton resetButton = (AbstractButton) reset;
 		resetButton.addMouseListener(controller);
 		
-		// register listener to the mine field buttons
-		Component[] components = buttonsPanel.getComponents();
-		for (Component component : components) {
-            if (component instanceof AbstractButton) {
-                    AbstractButton button = (AbstractButton) component;
-                    button.addMouseListener(controller);
-            }
-		}
+		// register listener to the mine field
+		board.addMouseListener(controller);
+		
+		// register listener to the game menu
+		saveItem.addActionListener(e -> controller.saveClicked());
+		loadItem.addActionListener(e -> controller.loadClicked());
+		openBoardItem.addActionListener(e -> controller.openBoardClicked());
+		copyBoardIdItem.addActionListener(e -> controller.copyBoardIdClicked());
+		
+		// pause the clock while the window is minimized
+		addWindowListener(new WindowAdapter() {
+			public void windowIconified(WindowEvent e) {
+				controller.pause();
+			}
+			
+			public void windowDeiconified(WindowEvent e) {
+				controller.resume();
+			}
+		});
 	}
 	
 	/**
-	 * Sets this button's background color to the default.
-	 * Input: the column and row of the button
+	 * Registers the controller of an endless game as the listener to the reset button, the mine field and the
+	 * window. Saving, loading and board IDs only apply to mine fields of fixed size, so their menu items are
+	 * turned off.
 	 */
-	public void setDefaultBackground(int col, int row) {
-		buttons[col][row].setBackground(null);
-		buttons[col][row].setBorderPainted(true);
-		this.setVisible(true);
+	public void registerListener(EndlessController controller) {
+		
+		// register listener to the reset button and the mine field
+		((AbstractButton) topPanel.getComponent(1)).addMouseListener(controller);
+		board.addMouseListener(controller);
+		
+		// turn off the game menu
+		saveItem.setEnabled(false);
+		loadItem.setEnabled(false);
+		openBoardItem.setEnabled(false);
+		copyBoardIdItem.setEnabled(false);
+		
+		// pause the clock while the window is minimized
+		addWindowListener(new WindowAdapter() {
+			public void windowIconified(WindowEvent e) {
+				controller.pause();
+			}
+			
+			public void windowDeiconified(WindowEvent e) {
+				controller.resume();
+			}
+		});
 	}
 	
 	/**
-	 * Sets this button's background color to the default and this button's text to its value.
-	 * Input: the column, row, and value of the button
+	 * Ends a player action by asking for one repaint of every cell the action changed.
+	 * The methods that show cells only record what changed, so however many cells an
+	 * action touches, it costs a single repaint.
 	 */
-	public void showValue(int col, int row, int value) {
-		
-		setDefaultBackground(col, row);
-		String val = Integer.toString(value);
-		buttons[col][row].setText(val);
-		
-		if (value == 0) {
-			buttons[col][row].setText("");
-			buttons[col][row].setBackground(Color.LIGHT_GRAY);
-			buttons[col][row].setOpaque(true);
-			buttons[col][row].setBorderPainted(false);
-		}
-		else if (value == 1) {
-			buttons[col][row].setForeground(Color.BLUE);
-		}
-		else if (value == 2) {
-			buttons[col][row].setForeground(Color.GREEN);
-		}
-		else if (value == 3) {
-			buttons[col][row].setForeground(Color.RED);
-		}
-		else if (value == 4) {
-			buttons[col][row].setForeground(Color.MAGENTA);
-		}
-		else if (value == 5) {
-			buttons[col][row].setForeground(Color.ORANGE);
+	public void endAction() {
+		if (board.flush() && Metrics.ENABLED) {
+			Metrics.get().recordRepaint();
 		}
-		else if (value == 6) {
-			buttons[col][row].setForeground(Color.PINK);
-		}
-		else if (value == 7) {
-			buttons[col][row].setForeground(Color.CYAN);
-		}
-		else if (value == 8) {
-			buttons[col][row].setForeground(Color.YELLOW);
+	}
+	
+	/**
+	 * Shows the value of this cell, as it is in the mine field shown.
+	 * Input: the column and row of the cell
+	 */
+	public void showValue(int col, int row) {
+		board.markDirty(col, row);
+	}
+	
+	/**
+	 * Shows the values of a batch of cells revealed on an endless mine field in one pass.
+	 * Input: the batch of revealed cells
+	 */
+	public void showValues(CellBatch batch) {
+		for (int i = 0; i < batch.size(); i++) {
+			board.markDirty(batch.getColumn(i), batch.getRow(i));
 		}
-		this.setVisible(true);
 	}
 	
 	/**
-	 * Adds a flag to this button by turning its background color blue.
-	 * Input: the column and row of the button
+	 * Shows every cell of the mine field as it is in the model.
+	 */
+	public void showAll() {
+		board.markAllDirty();
+	}
+	
+	/**
+	 * Shows the flag of this cell as placed or removed.
+	 * Input: the column and row of the cell
 	 */
 	public void placeFlag(int col, int row) {
-		paint(col, row, Color.BLUE);
+		board.markDirty(col, row);
 	}
 	
 	/**
@@ -154,146 +212,38 @@ public class View extends JFrame {
 	}
 	
 	/**
-	 * Shows that this button is a mine by turning its background color red.
-	 * Input: the column and row of the button
+	 * Redraws the mine field from the model, which has just been reset, and sets the mine
+	 * counter label to the total number of mines and the timer laber to 0.
 	 */
-	public void showMine(int col, int row) {
-		paint(col, row, Color.RED);
+	public void reset() {
+		mineCounter.setText("  " + Integer.toString(mines) + "  ");
+		timer.setText("  0  ");
+		board.setVictory(false);
+		board.markAllDirty();
 	}
 	
 	/**
-	 * Sets all the buttons in the mine field to the default background color and empty text, and
-	 * sets the mine counter label to the total number of mines and the timer laber to 0.
+	 * Shows another mine field, which may be of another size or endless.
+	 * Input: the mine field, and the number of mines to show on the counter
 	 */
-	public void reset() {
-		mineCounter.setText("  " + Integer.toString(mines) + "  ");
-		timer.setText("  0  ");
-		for (int i = 0; i < length; i++) {
-			for (int j = 0; j < length; j++) {
-				buttons[j][i].setText("");
-				setDefaultBackground(j, i);
-			}
-		}
+	public void setSource(CellSource source, int mines) {
+		this.mines = mines;
+		board.setSource(source);
 	}
 	
 	/**
-	 * Paints all the tiles black to indicate the player has won. Prints a victory message if there's room.
-	 * @return
+	 * Sets the number of mines the counter shows when the game is reset, for a mine field of the same size.
+	 * Input: the number of mines
 	 */
-	public void showVictoryMsg() {
-		
-		// paint all the cells black
-		for (int i = 0; i < length; i++) {
-			for (int j = 0; j < length; j++) {
-				buttons[i][j].setText("");
-				paint(i, j, Color.BLACK);
-			}
-		}
-		
-		// paint a victory message
-		if (length > 18) {
-			// the Y
-			paint(2, 4, Color.GREEN);
-			paint(1, 2, Color.GREEN);
-			paint(1, 3, Color.GREEN);
-			paint(4, 4, Color.GREEN);
-			paint(5, 2, Color.GREEN);
-			paint(5, 3, Color.GREEN);
-			paint(3, 5, Color.GREEN);
-			paint(3, 6, Color.GREEN);
-			paint(3, 7, Color.GREEN);
-
-			// the O
-			paint(7, 3, Color.GREEN);
-			paint(7, 4, Color.GREEN);
-			paint(7, 5, Color.GREEN);
-			paint(7, 6, Color.GREEN);
-			paint(11, 3, Color.GREEN);
-			paint(11, 4, Color.GREEN);
-			paint(11, 5, Color.GREEN);
-			paint(11, 6, Color.GREEN);
-			paint(8, 2, Color.GREEN);
-			paint(9, 2, Color.GREEN);
-			paint(10, 2, Color.GREEN);
-			paint(8, 7, Color.GREEN);
-			paint(9, 7, Color.GREEN);
-			paint(10, 7, Color.GREEN);
-		
-			// the U
-			paint(13, 2, Color.GREEN);
-			paint(13, 3, Color.GREEN);
-			paint(13, 4, Color.GREEN);
-			paint(13, 5, Color.GREEN);
-			paint(13, 6, Color.GREEN);
-			paint(14, 7, Color.GREEN);
-			paint(15, 7, Color.GREEN);
-			paint(16, 7, Color.GREEN);
-			paint(17, 6, Color.GREEN);
-			paint(17, 5, Color.GREEN);
-			paint(17, 4, Color.GREEN);
-			paint(17, 3, Color.GREEN);
-			paint(17, 2, Color.GREEN);
-		
-			// the W
-			paint(1, 11, Color.GREEN);
-			paint(1, 12, Color.GREEN);
-			paint(1, 13, Color.GREEN);
-			paint(1, 14, Color.GREEN);
-			paint(1, 15, Color.GREEN);
-			paint(2, 16, Color.GREEN);
-			paint(3, 15, Color.GREEN);
-			paint(4, 16, Color.GREEN);
-			paint(5, 15, Color.GREEN);
-			paint(5, 14, Color.GREEN);
-			paint(5, 13, Color.GREEN);
-			paint(5, 12, Color.GREEN);
-			paint(5, 11, Color.GREEN);
-		
-			// the second O
-			paint(7, 12, Color.GREEN);
-			paint(7, 13, Color.GREEN);
-			paint(7, 14, Color.GREEN);
-			paint(7, 15, Color.GREEN);
-			paint(11, 12, Color.GREEN);
-			paint(11, 13, Color.GREEN);
-			paint(11, 14, Color.GREEN);
-			paint(11, 15, Color.GREEN);
-			paint(8, 11, Color.GREEN);
-			paint(9, 11, Color.GREEN);
-			paint(10, 11, Color.GREEN);
-			paint(8, 16, Color.GREEN);
-			paint(9, 16, Color.GREEN);
-			paint(10, 16, Color.GREEN);
-
-			// the N
-			paint(13, 11, Color.GREEN);
-			paint(13, 12, Color.GREEN);
-			paint(13, 13, Color.GREEN);
-			paint(13, 14, Color.GREEN);
-			paint(13, 15, Color.GREEN);
-			paint(13, 16, Color.GREEN);
-			paint(17, 11, Color.GREEN);
-			paint(17, 12, Color.GREEN);
-			paint(17, 13, Color.GREEN);
-			paint(17, 14, Color.GREEN);
-			paint(17, 15, Color.GREEN);
-			paint(17, 16, Color.GREEN);
-			paint(14, 12, Color.GREEN);
-			paint(15, 13, Color.GREEN);
-			paint(15, 14, Color.GREEN);
-			paint(16, 15, Color.GREEN);
-		}
+	public void setMines(int mines) {
+		this.mines = mines;
 	}
 	
 	/**
-	 * Paints a mine field button.
-	 * Input: column and row of the button to paint, and the color to paint it
+	 * Paints all the tiles black to indicate the player has won. Prints a victory message if there's room.
 	 */
-	private void paint(int col, int row, Color color) {
-		buttons[col][row].setBackground(color);
-		buttons[col][row].setOpaque(true);
-		buttons[col][row].setBorderPainted(false);
-		this.setVisible(true);
+	public void showVictoryMsg() {
+		board.setVictory(true);
 	}
 	
 }